@@ -0,0 +1,199 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.VitalyouApplication;
+import com.example.vitalyou.config.IdGeneratorInitializer;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.service.DailyNutritionService;
+import com.example.vitalyou.service.FoodSearchIndex;
+import com.example.vitalyou.service.ShardRebalancer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Boots the application against an in-memory H2 (schema from the Flyway migrations) and seeds it
+// with a fixed, reproducible data set.
+// Rows are inserted with plain JDBC batches; the rollup, id generator and search index are then
+// rebuilt the same way the application does at startup.
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    static final String[] FOOD_NAMES = {
+        "Pollo", "Arroz", "Brócoli", "Manzana", "Avena", "Huevo", "Salmón", "Espinaca",
+        "Almendras", "Plátano", "Yogur", "Pan", "Queso", "Lentejas", "Atún", "Tomate"
+    };
+    static final String[] FOOD_STYLES = {
+        "a la plancha", "integral", "cocido", "crudo", "asado", "light", "orgánico", "en conserva"
+    };
+
+    private static final int INSERT_BATCH = 5000;
+    private static final long SEED = 42L;
+
+    public final ConfigurableApplicationContext context;
+    public final List<Long> userIds;
+    public final List<Long> foodIds;
+    public final LocalDate firstDay;
+    public final int days;
+
+    private BenchmarkDatabase(ConfigurableApplicationContext context, List<Long> userIds, List<Long> foodIds,
+                              LocalDate firstDay, int days) {
+        this.context = context;
+        this.userIds = userIds;
+        this.foodIds = foodIds;
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    public static BenchmarkDatabase start(int users, int foods, int mealsPerDay, int days) {
+        return start(WebApplicationType.NONE, users, foods, mealsPerDay, days);
+    }
+
+    // Extra arguments are passed to the application (e.g. --spring.profiles.active=virtual-threads)
+    public static BenchmarkDatabase start(WebApplicationType web, int users, int foods, int mealsPerDay, int days,
+                                          String... args) {
+        // Command-line arguments so they win over application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(VitalyouApplication.class)
+                .web(web)
+                .run(arguments.toArray(String[]::new));
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Random random = new Random(SEED);
+        LocalDateTime now = LocalDateTime.now();
+
+        // DataLoader has already seeded its sample rows; only the rows added here are used
+        long lastUserId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        long lastFoodId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM foods", Long.class);
+
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            userRows.add(new Object[] {"bench" + i + "@example.com", "Usuario " + i, "secret", 70.0, 175.0, 30, now});
+        }
+        insert(jdbc, "INSERT INTO users (email, name, password, weight, height, age, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", userRows);
+        List<Long> userIds = jdbc.queryForList("SELECT id FROM users WHERE id > ? ORDER BY id", Long.class, lastUserId);
+
+        List<Object[]> foodRows = new ArrayList<>(foods);
+        double[] calories = new double[foods];
+        for (int i = 0; i < foods; i++) {
+            String name = FOOD_NAMES[i % FOOD_NAMES.length] + " " + FOOD_STYLES[(i / FOOD_NAMES.length) % FOOD_STYLES.length] + " " + i;
+            calories[i] = 20 + random.nextInt(600);
+            foodRows.add(new Object[] {name, calories[i], random.nextInt(300) / 10.0, random.nextInt(800) / 10.0,
+                    random.nextInt(400) / 10.0, "100g", now});
+        }
+        insert(jdbc, "INSERT INTO foods (name, calories, protein, carbs, fat, serving_size, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", foodRows);
+        List<Long> foodIds = jdbc.queryForList("SELECT id FROM foods WHERE id > ? ORDER BY id", Long.class, lastFoodId);
+
+        // Meals for the last `days` days, with explicit ids above anything DataLoader created
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1L);
+        Meal.MealType[] types = Meal.MealType.values();
+        long mealId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM meals", Long.class);
+        List<Object[]> mealRows = new ArrayList<>(INSERT_BATCH);
+        String mealSql = "INSERT INTO meals (id, user_id, food_id, quantity, meal_type, meal_date, total_calories, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        for (Long userId : userIds) {
+            for (int d = 0; d < days; d++) {
+                for (int m = 0; m < mealsPerDay; m++) {
+                    int food = random.nextInt(foodIds.size());
+                    double quantity = 0.5 + random.nextInt(4) * 0.5;
+                    mealRows.add(new Object[] {++mealId, userId, foodIds.get(food), quantity, types[m % types.length].name(),
+                            firstDay.plusDays(d), calories[food] * quantity, now});
+                    if (mealRows.size() == INSERT_BATCH) {
+                        insert(jdbc, mealSql, mealRows);
+                        mealRows.clear();
+                    }
+                }
+            }
+        }
+        insert(jdbc, mealSql, mealRows);
+
+        try {
+            context.getBean(IdGeneratorInitializer.class).run();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        DailyNutritionService dailyNutritionService = context.getBean(DailyNutritionService.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> dailyNutritionService.rebuildAll());
+        rebalanceShards(context);
+        context.getBean(FoodSearchIndex.class).rebuild();
+
+        return new BenchmarkDatabase(context, userIds, foodIds, firstDay, days);
+    }
+
+    // Private workouts per user plus completed sessions per user, spread over the seeded days
+    public void seedWorkoutSessions(int workoutsPerUser, int sessionsPerUser) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Random random = new Random(SEED);
+        LocalDateTime now = LocalDateTime.now();
+        String[] categories = {"CARDIO", "FLEXIBILIDAD", "FUERZA", "HIIT"};
+        String[] difficulties = {"AVANZADO", "INTERMEDIO", "PRINCIPIANTE"};
+
+        long lastWorkoutId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM workouts", Long.class);
+        List<Object[]> workoutRows = new ArrayList<>();
+        for (Long userId : userIds) {
+            for (int w = 0; w < workoutsPerUser; w++) {
+                workoutRows.add(new Object[] {"Rutina " + w, "Rutina de prueba", 20 + random.nextInt(60),
+                        categories[w % categories.length], difficulties[random.nextInt(difficulties.length)], userId, now});
+            }
+        }
+        insert(jdbc, "INSERT INTO workouts (name, description, duration, category, difficulty, user_id, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", workoutRows);
+        List<Long> workoutIds = jdbc.queryForList("SELECT id FROM workouts WHERE id > ? ORDER BY id", Long.class, lastWorkoutId);
+
+        List<Object[]> sessionRows = new ArrayList<>();
+        int workout = 0;
+        for (Long userId : userIds) {
+            for (int i = 0; i < sessionsPerUser; i++) {
+                LocalDateTime started = firstDay.atStartOfDay().plusMinutes(random.nextInt(days * 24 * 60));
+                int minutes = 20 + random.nextInt(60);
+                sessionRows.add(new Object[] {userId, workoutIds.isEmpty() ? null : workoutIds.get(workout++ % workoutIds.size()),
+                        started, started.plusMinutes(minutes), minutes, minutes * 8, "Sesión " + i});
+            }
+        }
+        insert(jdbc, "INSERT INTO workout_sessions (user_id, workout_id, started_at, finished_at, duration_minutes, calories_burned, notes) VALUES (?, ?, ?, ?, ?, ?, ?)", sessionRows);
+
+        // The rows above took AUTO_INCREMENT ids; move the session id generator past them
+        try {
+            context.getBean(IdGeneratorInitializer.class).run();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        rebalanceShards(context);
+    }
+
+    // With vitalyou.sharding.urls every row above went to shard 0; move each user to their own shard
+    private static void rebalanceShards(ConfigurableApplicationContext context) {
+        try {
+            context.getBean(ShardRebalancer.class).rebalance();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_BATCH) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + INSERT_BATCH)));
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
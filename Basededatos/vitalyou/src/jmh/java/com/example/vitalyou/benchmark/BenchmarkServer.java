@@ -0,0 +1,23 @@
+package com.example.vitalyou.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+
+// Runs the API on a seeded H2 for load tests (see LoadTest). Arguments go to the application:
+//   mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=com.example.vitalyou.benchmark.BenchmarkServer \
+//       -Dexec.args="--spring.profiles.active=virtual-threads" -Dusers=1000
+// Data volumes: -Dusers, -Dfoods, -DmealsPerDay, -Ddays.
+public class BenchmarkServer {
+
+    public static void main(String[] args) {
+        BenchmarkDatabase database = BenchmarkDatabase.start(WebApplicationType.SERVLET,
+                Integer.getInteger("users", 1000),
+                Integer.getInteger("foods", 20000),
+                Integer.getInteger("mealsPerDay", 4),
+                Integer.getInteger("days", 30),
+                args);
+        System.out.println("✅ Servidor de benchmark listo: " + database.userIds.size() + " usuarios, "
+                + database.foodIds.size() + " alimentos, virtual threads "
+                + database.context.getEnvironment().getProperty("spring.threads.virtual.enabled", "false"));
+    }
+}
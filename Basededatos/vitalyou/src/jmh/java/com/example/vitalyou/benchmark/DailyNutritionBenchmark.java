@@ -0,0 +1,93 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.controller.MealController;
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.repository.MealRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// GET /api/meals/nutrition/daily/{userId}/{date}: the rollup read the endpoint serves today,
+// against the per-request loop over the day's meals it replaced.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DailyNutritionBenchmark {
+
+    @Param({"200"})
+    public int users;
+
+    @Param({"6"})
+    public int mealsPerDay;
+
+    @Param({"90"})
+    public int days;
+
+    private BenchmarkDatabase database;
+    private MealController mealController;
+    private MealRepository mealRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(users, 1000, mealsPerDay, days);
+        mealController = database.bean(MealController.class);
+        mealRepository = database.bean(MealRepository.class);
+        readOnly = new TransactionTemplate(database.bean(TransactionTemplate.class).getTransactionManager());
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> rollup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long userId = database.userIds.get(random.nextInt(database.userIds.size()));
+        LocalDate date = database.firstDay.plusDays(random.nextInt(database.days));
+        return mealController.getDailyNutrition(userId, date.toString());
+    }
+
+    @Benchmark
+    public double[] aggregationLoop() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long userId = database.userIds.get(random.nextInt(database.userIds.size()));
+        LocalDate date = database.firstDay.plusDays(random.nextInt(database.days));
+        return readOnly.execute(status -> {
+            List<Meal> meals = mealRepository.findByUserIdAndDateOrderByCreatedAtDesc(userId, date);
+            double[] totals = new double[5];
+            for (Meal meal : meals) {
+                if (meal.getTotalCalories() != null) {
+                    totals[0] += meal.getTotalCalories();
+                }
+                Food food = meal.getFood();
+                if (food != null && meal.getQuantity() != null) {
+                    double quantity = meal.getQuantity();
+                    if (food.getProtein() != null) {
+                        totals[1] += food.getProtein() * quantity;
+                    }
+                    if (food.getCarbs() != null) {
+                        totals[2] += food.getCarbs() * quantity;
+                    }
+                    if (food.getFat() != null) {
+                        totals[3] += food.getFat() * quantity;
+                    }
+                }
+            }
+            totals[4] = meals.size();
+            return totals;
+        });
+    }
+}
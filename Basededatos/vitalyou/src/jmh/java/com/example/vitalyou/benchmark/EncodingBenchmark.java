@@ -0,0 +1,82 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.dto.MealView;
+import com.example.vitalyou.dto.WorkoutSessionView;
+import com.example.vitalyou.repository.MealRepository;
+import com.example.vitalyou.repository.WorkoutSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Serialization CPU of one full page (200 rows) of a user's meal and session lists in each
+// response format, with the same mappers the message converters use, raw and gzipped as
+// Tomcat sends them. Payload sizes are printed once per trial:
+//   ENCODING <format> <payload> bytes=<raw> gzip=<compressed>
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private static final int ROWS = 200;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"meals", "sessions"})
+    public String payload;
+
+    private BenchmarkDatabase database;
+    private ObjectMapper mapper;
+    private List<?> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.start(1, 1000, 10, ROWS / 10);
+        database.seedWorkoutSessions(4, ROWS);
+        mapper = switch (format) {
+            case "smile" -> database.bean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            case "cbor" -> database.bean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            default -> database.bean(ObjectMapper.class);
+        };
+
+        Long userId = database.userIds.get(0);
+        rows = payload.equals("meals")
+                ? database.bean(MealRepository.class).findFirstPageByUserId(userId, Limit.of(ROWS)).stream()
+                        .map(MealView::from).toList()
+                : database.bean(WorkoutSessionRepository.class).findFirstPageByUserId(userId, Limit.of(ROWS)).stream()
+                        .map(WorkoutSessionView::from).toList();
+
+        System.out.println("ENCODING " + format + " " + payload + " bytes=" + serialize().length
+                + " gzip=" + serializeGzip().length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        try (GZIPOutputStream zipped = new GZIPOutputStream(out, 8192)) {
+            mapper.writeValue(zipped, rows);
+        }
+        return out.toByteArray();
+    }
+}
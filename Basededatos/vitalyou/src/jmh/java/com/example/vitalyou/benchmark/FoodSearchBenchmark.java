@@ -0,0 +1,52 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.repository.FoodRepository;
+import com.example.vitalyou.service.FoodSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// GET /api/foods/search: the in-memory index against the LIKE query it falls back to
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FoodSearchBenchmark {
+
+    @Param({"50000"})
+    public int foods;
+
+    // Name prefix, word prefix and substring matches
+    @Param({"pol", "integ", "lente"})
+    public String query;
+
+    private BenchmarkDatabase database;
+    private FoodSearchIndex foodSearchIndex;
+    private FoodRepository foodRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(1, foods, 0, 1);
+        foodSearchIndex = database.bean(FoodSearchIndex.class);
+        foodRepository = database.bean(FoodRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Food> index() {
+        return foodSearchIndex.search(query, FoodSearchIndex.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<Food> database() {
+        return foodRepository.findByNameContainingIgnoreCase(query);
+    }
+}
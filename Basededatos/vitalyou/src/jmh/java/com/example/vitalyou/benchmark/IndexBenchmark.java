@@ -0,0 +1,141 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.dto.NutritionDay;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.User;
+import com.example.vitalyou.model.Workout;
+import com.example.vitalyou.model.WorkoutSession;
+import com.example.vitalyou.repository.MealRepository;
+import com.example.vitalyou.repository.WorkoutRepository;
+import com.example.vitalyou.repository.WorkoutSessionRepository;
+import com.example.vitalyou.service.DailyNutritionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Repository hot paths on the schema before (V1.1: the ddl-auto=update baseline plus the rollup
+// and id generator tables) and after (V2, composite indexes) the index migration. The query plans of each shape are written
+// to target/query-plans-V<schema>.txt during setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndexBenchmark {
+
+    // Flyway target version
+    @Param({"1.1", "2"})
+    public String schema;
+
+    @Param({"200"})
+    public int users;
+
+    @Param({"6"})
+    public int mealsPerDay;
+
+    @Param({"180"})
+    public int days;
+
+    @Param({"200"})
+    public int sessionsPerUser;
+
+    private BenchmarkDatabase database;
+    private MealRepository mealRepository;
+    private WorkoutSessionRepository workoutSessionRepository;
+    private WorkoutRepository workoutRepository;
+    private DailyNutritionService dailyNutritionService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.start(WebApplicationType.NONE, users, 1000, mealsPerDay, days,
+                "--spring.flyway.target=" + schema);
+        database.seedWorkoutSessions(20, sessionsPerUser);
+        mealRepository = database.bean(MealRepository.class);
+        workoutSessionRepository = database.bean(WorkoutSessionRepository.class);
+        workoutRepository = database.bean(WorkoutRepository.class);
+        dailyNutritionService = database.bean(DailyNutritionService.class);
+        writePlans();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Meal> mealsOfDay() {
+        return mealRepository.findByUserIdAndDateOrderByCreatedAtDesc(userId(), day());
+    }
+
+    @Benchmark
+    public List<Meal> mealsFirstPage() {
+        return mealRepository.findFirstPageByUserId(userId(), Limit.of(50));
+    }
+
+    @Benchmark
+    public List<WorkoutSession> sessionsFirstPage() {
+        return workoutSessionRepository.findFirstPageByUserId(userId(), Limit.of(50));
+    }
+
+    @Benchmark
+    public List<Workout> workoutsByCategory() {
+        return workoutRepository.findByUserAndCategory(user(), Workout.Category.FUERZA);
+    }
+
+    @Benchmark
+    public List<NutritionDay> nutritionRange() {
+        LocalDate end = day();
+        return dailyNutritionService.findRange(userId(), end.minusDays(29), end);
+    }
+
+    private Long userId() {
+        return database.userIds.get(ThreadLocalRandom.current().nextInt(database.userIds.size()));
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(userId());
+        return user;
+    }
+
+    private LocalDate day() {
+        return database.firstDay.plusDays(ThreadLocalRandom.current().nextInt(database.days));
+    }
+
+    // SQL equivalent of each benchmarked query, for EXPLAIN
+    private void writePlans() throws IOException {
+        Long userId = database.userIds.get(0);
+        String day = "DATE '" + database.firstDay.plusDays(database.days / 2) + "'";
+        Map<String, String> shapes = new LinkedHashMap<>();
+        shapes.put("mealsOfDay", "SELECT * FROM meals WHERE user_id = " + userId + " AND meal_date = " + day + " ORDER BY created_at DESC");
+        shapes.put("mealsFirstPage", "SELECT * FROM meals WHERE user_id = " + userId + " ORDER BY meal_date DESC, id DESC LIMIT 51");
+        shapes.put("sessionsFirstPage", "SELECT * FROM workout_sessions WHERE user_id = " + userId + " ORDER BY started_at DESC, id DESC LIMIT 51");
+        shapes.put("workoutsByCategory", "SELECT * FROM workouts WHERE user_id = " + userId + " AND category = 'FUERZA'");
+        shapes.put("nutritionRange", "SELECT * FROM daily_nutrition WHERE user_id = " + userId + " AND nutrition_date BETWEEN " + day + " - 29 AND " + day + " ORDER BY nutrition_date");
+
+        JdbcTemplate jdbc = database.bean(JdbcTemplate.class);
+        StringBuilder plans = new StringBuilder("Schema V" + schema + "\n");
+        for (Map.Entry<String, String> shape : shapes.entrySet()) {
+            plans.append("\n-- ").append(shape.getKey()).append('\n');
+            for (Map<String, Object> row : jdbc.queryForList("EXPLAIN " + shape.getValue())) {
+                plans.append(row.values()).append('\n');
+            }
+        }
+        Path file = Path.of("target", "query-plans-V" + schema + ".txt");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, plans);
+        System.out.println(plans);
+    }
+}
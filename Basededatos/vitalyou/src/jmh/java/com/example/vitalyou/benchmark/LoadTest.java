@@ -0,0 +1,160 @@
+package com.example.vitalyou.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Closed-loop HTTP load test: N clients, each sending its next request as soon as the
+// previous one answers, over a mix of the blocking read endpoints. Prints and writes
+// throughput and latency percentiles as JSON.
+//   mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+//       -Dexec.mainClass=com.example.vitalyou.benchmark.LoadTest \
+//       -Dexec.args="url=http://localhost:8080 clients=1000 seconds=60 warmup=15 out=target/load-1000.json"
+public class LoadTest {
+
+    private static final String[] QUERIES = {"pol", "arr", "integ", "manz", "lente", "asado"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "60"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "15"));
+        String out = options.get("out");
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ObjectMapper mapper = new ObjectMapper();
+
+        // Users to query: the first page of /api/users
+        List<Long> userIds = new ArrayList<>();
+        HttpResponse<String> users = http.send(HttpRequest.newBuilder(URI.create(url + "/api/users?limit=200")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        for (JsonNode user : mapper.readTree(users.body())) {
+            userIds.add(user.get("id").asLong());
+        }
+        if (userIds.isEmpty()) {
+            throw new IllegalStateException("No users at " + url);
+        }
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        int[] errors = new int[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (true) {
+                        long sent = System.nanoTime();
+                        if (sent >= end) {
+                            break;
+                        }
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path(userIds, random)))
+                                .timeout(Duration.ofSeconds(30))
+                                .build();
+                        boolean ok;
+                        try {
+                            ok = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent < measureFrom) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors[client]++;
+                            continue;
+                        }
+                        if (n == samples.length) {
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = received - sent;
+                    }
+                } finally {
+                    latencies[client] = samples;
+                    counts[client] = n;
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("url", url);
+        report.put("clients", clients);
+        report.put("seconds", seconds);
+        report.put("requests", total);
+        report.put("errors", Arrays.stream(errors).sum());
+        report.put("throughputPerSecond", Math.round(total / (double) seconds));
+        report.put("p50Ms", percentile(all, 0.50));
+        report.put("p90Ms", percentile(all, 0.90));
+        report.put("p99Ms", percentile(all, 0.99));
+        report.put("maxMs", total == 0 ? 0 : all[total - 1] / 1_000_000.0);
+
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        if (out != null) {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(new File(out), report);
+        }
+    }
+
+    // Daily summary, food search and a page of meals: all block on JDBC
+    private static String path(List<Long> userIds, ThreadLocalRandom random) {
+        Long userId = userIds.get(random.nextInt(userIds.size()));
+        return switch (random.nextInt(3)) {
+            case 0 -> "/api/meals/nutrition/daily/" + userId + "/" + LocalDate.now().minusDays(random.nextInt(30));
+            case 1 -> "/api/foods/search?q=" + QUERIES[random.nextInt(QUERIES.length)];
+            default -> "/api/meals/user/" + userId + "?limit=20";
+        };
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.dto.MealView;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.User;
+import com.example.vitalyou.repository.MealRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of a user's meal list with the embedded food,
+// as entities (the old responses) and as the MealView DTOs returned today.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MealSerializationBenchmark {
+
+    @Param({"50", "200"})
+    public int meals;
+
+    private BenchmarkDatabase database;
+    private ObjectMapper objectMapper;
+    private List<Meal> entities;
+    private List<MealView> views;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(1, 1000, meals, 1);
+        objectMapper = database.bean(ObjectMapper.class);
+        Long userId = database.userIds.get(0);
+        // Loaded with the food (entity graph). The user is a detached proxy that Jackson cannot
+        // serialize, so the entities get a plain User in its place, as the old responses embedded it.
+        entities = database.bean(MealRepository.class).findFirstPageByUserId(userId, Limit.of(meals));
+        views = entities.stream().map(MealView::from).toList();
+        User user = new User("bench0@example.com", "Usuario 0", "secret");
+        user.setId(userId);
+        entities.forEach(meal -> meal.setUser(user));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public byte[] entities() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public byte[] views() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(views);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.vitalyou.benchmark;
+
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.service.MealService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Meal writes: Meal.calculateTotalCalories on its own, and a full POST /api/meals
+// (entity + rollup update in one transaction).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MealWriteBenchmark {
+
+    @Param({"100"})
+    public int users;
+
+    private BenchmarkDatabase database;
+    private MealService mealService;
+    private Meal meal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(users, 1000, 0, 1);
+        mealService = database.bean(MealService.class);
+        meal = new Meal(null, new Food("Avena", 389.0, 16.9, 66.3, 6.9, "100g"), 1.0,
+                Meal.MealType.BREAKFAST, LocalDate.now());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Double calculateTotalCalories() {
+        meal.setQuantity(ThreadLocalRandom.current().nextInt(1, 5) * 0.5);
+        return meal.getTotalCalories();
+    }
+
+    @Benchmark
+    public Optional<Meal> createMeal() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long userId = database.userIds.get(random.nextInt(database.userIds.size()));
+        Long foodId = database.foodIds.get(random.nextInt(database.foodIds.size()));
+        return mealService.createMeal(userId, foodId, 1.5, Meal.MealType.LUNCH, LocalDate.now());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.service.CalorieRecomputeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Re-estimates the calories of every stored session, e.g. after changing the MET table:
+//   java -jar vitalyou.jar --vitalyou.calories.recompute=true
+@Component
+@Order(11)
+public class CalorieRecomputeRunner implements CommandLineRunner {
+
+    @Autowired
+    private CalorieRecomputeService calorieRecomputeService;
+
+    @Value("${vitalyou.calories.recompute:false}")
+    private boolean recompute;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (!recompute) {
+            return;
+        }
+
+        System.out.println("🔄 Recalculando calorías de las sesiones...");
+        long start = System.currentTimeMillis();
+        long sessions = calorieRecomputeService.recomputeAll();
+        System.out.println("✅ Calorías recalculadas: " + sessions + " sesiones en "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.vitalyou.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Tomcat applies server.compression.min-response-size only when it knows the Content-Length, but
+// Jackson streams its responses without one, so every small JSON body was being gzipped.
+// This filter holds back the first min-response-size bytes of an /api response:
+// - a body that ends inside the buffer goes out with its Content-Length, and Tomcat leaves it alone;
+// - a larger one is released as a stream, and Tomcat compresses it.
+// Streaming exports (async, and already gzipped by NdjsonExport) are passed through untouched, and
+// any other response that goes async or non-blocking is released as a stream when it does.
+@Component
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    @Value("${server.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize minResponseSize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !compressionEnabled || !uri.startsWith("/api/") || uri.endsWith("/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ThresholdResponse wrapped = new ThresholdResponse(response, (int) minResponseSize.toBytes());
+        try {
+            chain.doFilter(request, wrapped);
+        } finally {
+            // An async response is still being written on another thread: stop holding it back
+            if (request.isAsyncStarted()) {
+                wrapped.release();
+            } else {
+                wrapped.finish();
+            }
+        }
+    }
+
+    private static final class ThresholdResponse extends HttpServletResponseWrapper {
+
+        private final ThresholdStream stream;
+        private PrintWriter writer;
+
+        ThresholdResponse(HttpServletResponse response, int threshold) {
+            super(response);
+            this.stream = new ThresholdStream(response, threshold);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                writer = new PrintWriter(new OutputStreamWriter(stream, charset));
+            }
+            return writer;
+        }
+
+        // Committing early would hide the length from Tomcat; the buffer is flushed by finish()
+        @Override
+        public void flushBuffer() throws IOException {
+            if (stream.released) {
+                super.flushBuffer();
+            }
+        }
+
+        // Nothing has reached the client if these succeed, so the threshold starts over
+        @Override
+        public void reset() {
+            super.reset();
+            stream.clear();
+            writer = null;
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            stream.clear();
+            writer = null;
+        }
+
+        void release() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.release();
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            stream.finish();
+        }
+    }
+
+    private static final class ThresholdStream extends ServletOutputStream {
+
+        private final HttpServletResponse response;
+        private final byte[] buffer;
+        private int count = 0;
+        private boolean released = false;
+
+        ThresholdStream(HttpServletResponse response, int threshold) {
+            this.response = response;
+            this.buffer = new byte[threshold];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!released && count < buffer.length) {
+                buffer[count++] = (byte) b;
+                return;
+            }
+            release();
+            response.getOutputStream().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!released && count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+            release();
+            response.getOutputStream().write(b, off, len);
+        }
+
+        // Over the threshold: from here on the body streams and Tomcat decides on compression
+        void release() throws IOException {
+            if (released) {
+                return;
+            }
+            released = true;
+            response.getOutputStream().write(buffer, 0, count);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (released) {
+                response.getOutputStream().flush();
+            }
+        }
+
+        void clear() {
+            count = 0;
+            released = false;
+        }
+
+        void finish() throws IOException {
+            if (released || count == 0) {
+                return;
+            }
+            released = true;
+            if (!response.isCommitted()) {
+                response.setContentLength(count);
+            }
+            response.getOutputStream().write(buffer, 0, count);
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return !released || response.getOutputStream().isReady();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Non-blocking writes are not held back: release what is buffered and hand over to the container
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            try {
+                release();
+                response.getOutputStream().setWriteListener(listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.Workout;
+import com.example.vitalyou.model.WorkoutSession;
+import com.example.vitalyou.service.CalorieEstimator;
+import com.example.vitalyou.service.DailyNutritionService;
+import com.example.vitalyou.service.ReferenceReplicator;
+import com.example.vitalyou.service.Shards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Synthetic data at production scale for load and capacity tests, instead of DataLoader's sample rows
+// (perfil generator, see application-generator.properties). On an empty database it creates a food
+// catalog, a public workout catalog with exercises, and users with meals-per-day meals per day and
+// about sessions-per-week sessions per week over the last days days.
+// - Reproducible: catalogs come from one Random(seed) and each user's history from a generator
+//   seeded with seed and the user's position, so the data does not depend on thread scheduling.
+// - Meals and sessions get explicit ids (blocks per user inside their shard's id range) and are
+//   written by threads workers with JDBC batches of batch-size rows, one transaction per batch.
+// Ends with the rows and rows/s of each step.
+@Component
+@Profile("generator")
+@Order(1)
+public class DataGenerator implements CommandLineRunner {
+
+    private static final String[] FOOD_NAMES = {
+        "Pollo", "Arroz", "Brócoli", "Manzana", "Avena", "Huevo", "Salmón", "Espinaca", "Almendras", "Plátano",
+        "Yogur", "Pan", "Queso", "Lentejas", "Atún", "Tomate", "Pasta", "Garbanzos", "Leche", "Aguacate"
+    };
+    private static final String[] FOOD_STYLES = {
+        "a la plancha", "integral", "cocido", "crudo", "asado", "light", "orgánico", "en conserva", "al horno", "frito"
+    };
+    private static final String[] EXERCISES = {
+        "Sentadillas", "Flexiones", "Dominadas", "Plancha", "Zancadas", "Burpees", "Peso muerto", "Press banca",
+        "Remo", "Saltos", "Estiramientos", "Carrera"
+    };
+    private static final String[] GOALS = {"Ganar músculo", "Perder peso", "Mantener forma física", "Mejorar resistencia"};
+
+    private static final String INSERT_USER = "INSERT INTO users (email, name, password, age, weight, height, "
+            + "fitness_goal, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_FOOD = "INSERT INTO foods (name, calories, protein, carbs, fat, serving_size, "
+            + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_WORKOUT = "INSERT INTO workouts (name, description, duration, category, "
+            + "difficulty, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_EXERCISE = "INSERT INTO exercises (name, description, sets, reps, "
+            + "duration_seconds, weight, workout_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_MEAL = "INSERT INTO meals (id, user_id, food_id, quantity, meal_type, "
+            + "meal_date, total_calories, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SESSION = "INSERT INTO workout_sessions (id, user_id, workout_id, started_at, "
+            + "finished_at, duration_minutes, calories_burned) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Users handed to a worker at a time
+    private static final int USERS_PER_TASK = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ReferenceReplicator referenceReplicator;
+
+    @Autowired
+    private DailyNutritionService dailyNutritionService;
+
+    @Autowired
+    private CalorieEstimator calorieEstimator;
+
+    @Autowired
+    private IdGeneratorInitializer idGeneratorInitializer;
+
+    @Value("${vitalyou.generator.users:1000}")
+    private int userCount;
+
+    @Value("${vitalyou.generator.foods:20000}")
+    private int foodCount;
+
+    @Value("${vitalyou.generator.workouts:200}")
+    private int workoutCount;
+
+    @Value("${vitalyou.generator.exercises-per-workout:6}")
+    private int exercisesPerWorkout;
+
+    @Value("${vitalyou.generator.meals-per-day:4}")
+    private int mealsPerDay;
+
+    @Value("${vitalyou.generator.sessions-per-week:3}")
+    private double sessionsPerWeek;
+
+    @Value("${vitalyou.generator.days:90}")
+    private int days;
+
+    @Value("${vitalyou.generator.seed:42}")
+    private long seed;
+
+    @Value("${vitalyou.generator.threads:4}")
+    private int threads;
+
+    @Value("${vitalyou.generator.batch-size:5000}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    private record GeneratedUser(long id, double weight, Workout.Category[] favorites) {}
+
+    @Override
+    public void run(String... args) throws Exception {
+        // Ids are read back in insert order, so the catalogs must start empty too
+        if (jdbcTemplate.queryForObject("SELECT (SELECT COUNT(*) FROM users) + (SELECT COUNT(*) FROM foods)"
+                + " + (SELECT COUNT(*) FROM workouts)", Long.class) > 0) {
+            System.out.println("⏭️ La base de datos no está vacía: generador de datos omitido");
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        System.out.println("🏭 Generando datos sintéticos: " + userCount + " usuarios, " + foodCount + " alimentos, "
+                + mealsPerDay + " comidas/día y " + sessionsPerWeek + " sesiones/semana durante " + days
+                + " días (semilla " + seed + ", " + threads + " hilos)");
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDate.now().atStartOfDay();
+
+        long stepStart = System.currentTimeMillis();
+        double[] foodCalories = new double[foodCount];
+        List<Long> foodIds = insertFoods(random, now, foodCalories);
+        report("Alimentos", foodIds.size(), stepStart);
+
+        stepStart = System.currentTimeMillis();
+        List<Workout> workouts = insertWorkouts(random, now);
+        report("Workouts y ejercicios", workouts.size() * (1L + exercisesPerWorkout), stepStart);
+
+        stepStart = System.currentTimeMillis();
+        List<GeneratedUser> users = insertUsers(random, now);
+        report("Usuarios", users.size(), stepStart);
+
+        // Meals and sessions point at these rows on every shard
+        referenceReplicator.syncAll();
+
+        stepStart = System.currentTimeMillis();
+        AtomicLong meals = new AtomicLong();
+        AtomicLong sessions = new AtomicLong();
+        generateHistories(users, foodIds, foodCalories, workouts, meals, sessions);
+        report("Comidas y sesiones", meals.get() + sessions.get(), stepStart);
+
+        stepStart = System.currentTimeMillis();
+        long rollupRows = shards.onEach(() -> transactionTemplate.execute(status -> dailyNutritionService.rebuildAll()))
+                .stream().mapToLong(Integer::longValue).sum();
+        report("Resumen nutricional diario", rollupRows, stepStart);
+
+        // Generators continue above the explicit ids
+        idGeneratorInitializer.run();
+
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        long total = foodIds.size() + workouts.size() * (1L + exercisesPerWorkout) + users.size()
+                + meals.get() + sessions.get() + rollupRows;
+        System.out.println("✅ Datos sintéticos generados: " + meals.get() + " comidas, " + sessions.get()
+                + " sesiones, " + total + " filas en " + millis + " ms (" + total * 1000 / millis + " filas/s)");
+    }
+
+    private List<Long> insertFoods(Random random, LocalDateTime now, double[] calories) {
+        List<Object[]> rows = new ArrayList<>(foodCount);
+        for (int i = 0; i < foodCount; i++) {
+            String name = FOOD_NAMES[i % FOOD_NAMES.length] + " "
+                    + FOOD_STYLES[(i / FOOD_NAMES.length) % FOOD_STYLES.length] + " " + i;
+            calories[i] = 20 + random.nextInt(600);
+            rows.add(new Object[] {name, calories[i], random.nextInt(300) / 10.0, random.nextInt(800) / 10.0,
+                    random.nextInt(400) / 10.0, "100g", now});
+        }
+        insert(INSERT_FOOD, rows);
+        return jdbcTemplate.queryForList("SELECT id FROM foods ORDER BY id", Long.class);
+    }
+
+    private List<Workout> insertWorkouts(Random random, LocalDateTime now) {
+        Workout.Category[] categories = Workout.Category.values();
+        Workout.Difficulty[] difficulties = Workout.Difficulty.values();
+        List<Workout> workouts = new ArrayList<>(workoutCount);
+        List<Object[]> rows = new ArrayList<>(workoutCount);
+        for (int i = 0; i < workoutCount; i++) {
+            Workout workout = new Workout("Rutina " + i, "Rutina generada", 20 + random.nextInt(56),
+                    difficulties[random.nextInt(difficulties.length)], categories[i % categories.length]);
+            workouts.add(workout);
+            rows.add(new Object[] {workout.getName(), workout.getDescription(), workout.getDuration(),
+                    workout.getCategory().name(), workout.getDifficulty().name(), now});
+        }
+        insert(INSERT_WORKOUT, rows);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM workouts ORDER BY id", Long.class);
+        for (int i = 0; i < workouts.size(); i++) {
+            workouts.get(i).setId(ids.get(i));
+        }
+
+        List<Object[]> exercises = new ArrayList<>(workoutCount * exercisesPerWorkout);
+        for (Workout workout : workouts) {
+            for (int e = 0; e < exercisesPerWorkout; e++) {
+                boolean timed = random.nextInt(3) == 0;
+                exercises.add(new Object[] {EXERCISES[random.nextInt(EXERCISES.length)], "Ejercicio generado",
+                        timed ? null : 3 + random.nextInt(3), timed ? null : 8 + random.nextInt(8),
+                        timed ? 30 + random.nextInt(60) : null, timed ? null : random.nextInt(40) * 2.5,
+                        workout.getId()});
+            }
+        }
+        insert(INSERT_EXERCISE, exercises);
+        return workouts;
+    }
+
+    private List<GeneratedUser> insertUsers(Random random, LocalDateTime now) {
+        Workout.Category[] categories = Workout.Category.values();
+        List<Object[]> rows = new ArrayList<>(userCount);
+        double[] weights = new double[userCount];
+        for (int i = 0; i < userCount; i++) {
+            weights[i] = 50 + random.nextInt(600) / 10.0;
+            rows.add(new Object[] {"usuario" + i + "@generado.vitalyou", "Usuario " + i, "secret",
+                    18 + random.nextInt(53), weights[i], 150 + random.nextInt(50) * 1.0,
+                    GOALS[random.nextInt(GOALS.length)], now});
+        }
+        insert(INSERT_USER, rows);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        List<GeneratedUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            // Two preferred categories: most sessions are of these
+            Workout.Category first = categories[random.nextInt(categories.length)];
+            Workout.Category second = categories[random.nextInt(categories.length)];
+            users.add(new GeneratedUser(ids.get(i), weights[i], new Workout.Category[] {first, second}));
+        }
+        return users;
+    }
+
+    // Users grouped by shard, USERS_PER_TASK at a time per worker
+    private void generateHistories(List<GeneratedUser> users, List<Long> foodIds, double[] foodCalories,
+                                   List<Workout> workouts, AtomicLong meals, AtomicLong sessions)
+            throws InterruptedException {
+        List<List<GeneratedUser>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (GeneratedUser user : users) {
+            byShard.get(shards.shardOf(user.id())).add(user);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int shard = 0; shard < byShard.size(); shard++) {
+                List<GeneratedUser> shardUsers = byShard.get(shard);
+                long origin = shard * Shards.ID_SPACE;
+                long mealBase = maxId("meals", shard, origin);
+                long sessionBase = maxId("workout_sessions", shard, origin);
+                for (int from = 0; from < shardUsers.size(); from += USERS_PER_TASK) {
+                    int taskShard = shard;
+                    int first = from;
+                    List<GeneratedUser> slice = shardUsers.subList(from, Math.min(shardUsers.size(), from + USERS_PER_TASK));
+                    tasks.add(pool.submit(() -> shards.on(taskShard, () -> {
+                        generate(slice, first, mealBase, sessionBase, foodIds, foodCalories, workouts, meals, sessions);
+                        return null;
+                    })));
+                }
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Ids: the user at position p of their shard owns meal ids mealBase + p * meals per user + 1..
+    // and session ids sessionBase + p * days + 1.. (at most one session a day)
+    private void generate(List<GeneratedUser> users, int firstPosition, long mealBase, long sessionBase,
+                          List<Long> foodIds, double[] foodCalories, List<Workout> workouts,
+                          AtomicLong meals, AtomicLong sessions) {
+        Meal.MealType[] types = {Meal.MealType.BREAKFAST, Meal.MealType.LUNCH, Meal.MealType.DINNER, Meal.MealType.SNACK};
+        int[] hours = {8, 14, 21, 17};
+        long mealsPerUser = (long) mealsPerDay * days;
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1L);
+        List<Object[]> mealRows = new ArrayList<>(batchSize);
+        List<Object[]> sessionRows = new ArrayList<>(batchSize);
+
+        for (int u = 0; u < users.size(); u++) {
+            GeneratedUser user = users.get(u);
+            int position = firstPosition + u;
+            SplittableRandom random = new SplittableRandom(seed * 31 + user.id());
+
+            long mealId = mealBase + position * mealsPerUser;
+            for (int d = 0; d < days; d++) {
+                LocalDate day = firstDay.plusDays(d);
+                for (int m = 0; m < mealsPerDay; m++) {
+                    // Skewed towards the first foods: a few staples make up most meals
+                    int food = (int) (foodIds.size() * Math.pow(random.nextDouble(), 3));
+                    double quantity = 0.5 + random.nextInt(6) * 0.5;
+                    Meal.MealType type = types[m % types.length];
+                    mealRows.add(new Object[] {++mealId, user.id(), foodIds.get(food), quantity, type.name(), day,
+                            foodCalories[food] * quantity,
+                            day.atTime(hours[m % hours.length], random.nextInt(60))});
+                    if (mealRows.size() == batchSize) {
+                        meals.addAndGet(insert(INSERT_MEAL, mealRows));
+                    }
+                }
+            }
+
+            long sessionId = sessionBase + (long) position * days;
+            double chance = Math.min(1, sessionsPerWeek / 7);
+            for (int d = 0; d < days; d++) {
+                sessionId++;
+                if (random.nextDouble() >= chance) {
+                    continue;
+                }
+                Workout workout = pickWorkout(random, workouts, user.favorites());
+                int minutes = Math.max(10, workout.getDuration() + random.nextInt(21) - 10);
+                LocalDateTime started = firstDay.plusDays(d)
+                        .atTime(random.nextBoolean() ? 7 + random.nextInt(3) : 18 + random.nextInt(4), random.nextInt(60));
+                WorkoutSession session = new WorkoutSession();
+                session.setWorkout(workout);
+                session.setDurationMinutes(minutes);
+                sessionRows.add(new Object[] {sessionId, user.id(), workout.getId(), started, started.plusMinutes(minutes),
+                        minutes, calorieEstimator.estimate(session, user.weight())});
+                if (sessionRows.size() == batchSize) {
+                    sessions.addAndGet(insert(INSERT_SESSION, sessionRows));
+                }
+            }
+        }
+        meals.addAndGet(insert(INSERT_MEAL, mealRows));
+        sessions.addAndGet(insert(INSERT_SESSION, sessionRows));
+    }
+
+    // 70 % of the sessions are of one of the user's preferred categories
+    private static Workout pickWorkout(SplittableRandom random, List<Workout> workouts, Workout.Category[] favorites) {
+        Workout.Category[] categories = Workout.Category.values();
+        int size = workouts.size();
+        if (random.nextInt(10) < 7) {
+            Workout.Category favorite = favorites[random.nextInt(favorites.length)];
+            // Workouts cycle through the categories, so one of this category is at index c + k * categories
+            int count = (size - favorite.ordinal() + categories.length - 1) / categories.length;
+            if (count > 0) {
+                return workouts.get(favorite.ordinal() + random.nextInt(count) * categories.length);
+            }
+        }
+        return workouts.get(random.nextInt(size));
+    }
+
+    private long maxId(String table, int shard, long origin) {
+        return shards.on(shard, () -> jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), ?) FROM " + table
+                + " WHERE id >= ? AND id < ?", Long.class, origin, origin, origin + Shards.ID_SPACE));
+    }
+
+    // Batches of batch-size rows, one transaction each; clears rows and returns how many were written
+    private int insert(String sql, List<Object[]> rows) {
+        int written = rows.size();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        }
+        rows.clear();
+        return written;
+    }
+
+    private static void report(String step, long rows, long start) {
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        System.out.println("   - " + step + ": " + rows + " filas en " + millis + " ms ("
+                + rows * 1000 / millis + " filas/s)");
+    }
+}
@@ -2,14 +2,18 @@ package com.example.vitalyou.config;
 
 import com.example.vitalyou.model.*;
 import com.example.vitalyou.repository.*;
+import com.example.vitalyou.service.Shards;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 
+// Sample data for development; the generator profile uses DataGenerator instead
 @Component
+@Profile("!generator")
 public class DataLoader implements CommandLineRunner {
 
     @Autowired
@@ -24,6 +28,9 @@ public class DataLoader implements CommandLineRunner {
     @Autowired
     private FoodRepository foodRepository;
 
+    @Autowired
+    private Shards shards;
+
     @Override
     public void run(String... args) throws Exception {
         
@@ -112,7 +119,10 @@ public class DataLoader implements CommandLineRunner {
         // Esta sesión está en progreso (sin finishedAt)
         session4.setNotes("Entrenando ahora...");
 
-        workoutSessionRepository.saveAll(Arrays.asList(session1, session2, session3, session4));
+        // Cada sesión en el shard de su usuario
+        for (WorkoutSession session : Arrays.asList(session1, session2, session3, session4)) {
+            shards.forUser(session.getUser().getId(), () -> workoutSessionRepository.save(session));
+        }
 
         // Crear alimentos de ejemplo
         Food chicken = new Food("Pechuga de Pollo", 165.0, 31.0, 0.0, 3.6, "100g");
@@ -131,7 +141,7 @@ public class DataLoader implements CommandLineRunner {
         System.out.println("✅ Datos de ejemplo cargados exitosamente:");
         System.out.println("   - " + userRepository.count() + " usuarios");
         System.out.println("   - " + workoutRepository.count() + " workouts");
-        System.out.println("   - " + workoutSessionRepository.count() + " sesiones");
+        System.out.println("   - " + shards.sum(workoutSessionRepository::count) + " sesiones");
         System.out.println("   - " + foodRepository.count() + " alimentos");
         System.out.println("");
         System.out.println("🌐 API disponible en: http://localhost:8080");
@@ -0,0 +1,26 @@
+package com.example.vitalyou.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+// Hikari pools for the replica and shard setups: spring.datasource driver and
+// spring.datasource.hikari.* settings, another URL, and metrics under the pool name
+final class DataSourcePools {
+
+    private DataSourcePools() {}
+
+    static HikariDataSource create(Environment environment, DataSourceProperties properties, String url,
+                                   String username, String password, String name, MeterRegistry registry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        return pool;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.service.FoodImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+// Loads a nutrient database CSV into the food catalog at startup:
+//   java -jar vitalyou.jar --vitalyou.foods.import=/data/foods.csv
+@Component
+@Order(12)
+public class FoodImportRunner implements CommandLineRunner {
+
+    @Autowired
+    private FoodImportService foodImportService;
+
+    @Value("${vitalyou.foods.import:}")
+    private String file;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (file.isBlank()) {
+            return;
+        }
+
+        System.out.println("📦 Importando alimentos desde " + file + "...");
+        foodImportService.importFile(Path.of(file)).ifPresent(report -> {
+            for (FoodImportService.Rejected row : report.rejectedRows()) {
+                System.err.println("   ❌ Línea " + row.line() + ": " + row.reason() + " -> " + row.content());
+            }
+            System.out.println("✅ Alimentos importados: " + report.inserted() + " nuevos, " + report.updated()
+                    + " actualizados, " + report.rejected() + " rechazados de " + report.rows() + " filas en "
+                    + report.millis() + " ms");
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.vitalyou.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Hibernate work done by each request, recorded per endpoint:
+//   hibernate.request.statements, hibernate.request.entities.loaded, hibernate.request.collections.fetched
+// Counters live in a ThreadLocal between preHandle and afterCompletion; work done
+// outside a request (startup, async exports) is not counted.
+@Component
+public class HibernateRequestMetrics implements AsyncHandlerInterceptor {
+
+    private static final int STATEMENTS = 0;
+    private static final int ENTITIES = 1;
+    private static final int COLLECTIONS = 2;
+
+    private static final ThreadLocal<long[]> CURRENT = new ThreadLocal<>();
+
+    // Registered as hibernate.session_factory.statement_inspector (see MetricsConfig)
+    public static final StatementInspector STATEMENT_COUNTER = sql -> {
+        count(STATEMENTS);
+        return sql;
+    };
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> count(ENTITIES));
+        listeners.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event -> count(COLLECTIONS));
+    }
+
+    private static void count(int counter) {
+        long[] counters = CURRENT.get();
+        if (counters != null) {
+            counters[counter]++;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.set(new long[3]);
+        return true;
+    }
+
+    // Streaming responses finish on another thread; don't leave counters behind on this one
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        long[] counters = CURRENT.get();
+        CURRENT.remove();
+        if (counters == null) {
+            return;
+        }
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uriOf(request), "handler", handlerName(handler));
+        record("hibernate.request.statements", "JDBC statements prepared by the request", tags, counters[STATEMENTS]);
+        record("hibernate.request.entities.loaded", "Entities loaded by the request", tags, counters[ENTITIES]);
+        record("hibernate.request.collections.fetched", "Lazy collections fetched by the request", tags, counters[COLLECTIONS]);
+    }
+
+    private void record(String name, String description, Tags tags, long value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tags(tags)
+                .register(meterRegistry)
+                .record(value);
+    }
+
+    // Same values as the uri tag of http.server.requests
+    private static String uriOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    // "MealController#getDailyNutrition"
+    static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "#" + method.getMethod().getName();
+        }
+        return "none";
+    }
+}
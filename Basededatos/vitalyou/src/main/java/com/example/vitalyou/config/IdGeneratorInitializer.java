@@ -0,0 +1,68 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.WorkoutSession;
+import com.example.vitalyou.service.Shards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+// Meal and workout session ids used to come from AUTO_INCREMENT. Make sure the pooled
+// table generators hand out ids above every existing row before the first insert.
+// With sharding each shard has its own generator rows, counting up from shard * Shards.ID_SPACE,
+// so ids are unique across shards and a row keeps a unique id when the rebalancer moves it. The
+// id range says where the block was fetched, not where the row was inserted (see Shards.ID_SPACE).
+@Component
+@Order(0)
+public class IdGeneratorInitializer implements CommandLineRunner {
+
+    // generator name -> table whose ids it generates
+    private static final Map<String, String> GENERATORS = Map.of(
+            Meal.ID_GENERATOR_NAME, "meals",
+            WorkoutSession.ID_GENERATOR_NAME, "workout_sessions");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Shards shards;
+
+    @Override
+    public void run(String... args) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        shards.onEach(() -> transactionTemplate.execute(status -> {
+            GENERATORS.forEach((generatorName, table) -> initialize(generatorName, table, Shards.currentOrHome()));
+            return null;
+        }));
+    }
+
+    private void initialize(String generatorName, String table, int shard) {
+        long origin = shard * Shards.ID_SPACE;
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table
+                + " WHERE id >= ? AND id < ?", Long.class, origin, origin + Shards.ID_SPACE);
+        // One full allocation block of margin, whatever the optimizer reads as the block start
+        long floor = Math.max(maxId, origin) + Meal.ID_ALLOCATION_SIZE + 1;
+
+        List<Long> current = jdbcTemplate.queryForList(
+                "SELECT next_val FROM " + Meal.ID_GENERATOR_TABLE + " WHERE generator_name = ?",
+                Long.class, generatorName);
+
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO " + Meal.ID_GENERATOR_TABLE + " (generator_name, next_val) VALUES (?, ?)",
+                    generatorName, floor);
+        } else if (current.get(0) < floor && (maxId > 0 || current.get(0) < origin)) {
+            jdbcTemplate.update("UPDATE " + Meal.ID_GENERATOR_TABLE + " SET next_val = ? WHERE generator_name = ?",
+                    floor, generatorName);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.repository.DailyNutritionRepository;
+import com.example.vitalyou.repository.MealRepository;
+import com.example.vitalyou.service.DailyNutritionService;
+import com.example.vitalyou.service.Shards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Backfills the daily_nutrition rollup from the meals table, shard by shard.
+// Runs on a shard whose rollup is empty but has meals, or on every shard on demand with
+//   java -jar vitalyou.jar --vitalyou.nutrition.rebuild-rollup=true
+@Component
+@Order(10)
+public class NutritionRollupRunner implements CommandLineRunner {
+
+    @Autowired
+    private DailyNutritionService dailyNutritionService;
+
+    @Autowired
+    private DailyNutritionRepository dailyNutritionRepository;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${vitalyou.nutrition.rebuild-rollup:false}")
+    private boolean rebuildRollup;
+
+    @Override
+    public void run(String... args) throws Exception {
+        shards.onEach(() -> {
+            rebuildIfNeeded();
+            return null;
+        });
+    }
+
+    private void rebuildIfNeeded() {
+        boolean missing = dailyNutritionRepository.count() == 0 && mealRepository.count() > 0;
+        if (!rebuildRollup && !missing) {
+            return;
+        }
+
+        System.out.println("🔄 Reconstruyendo resumen nutricional diario" + shardSuffix() + "...");
+        long start = System.currentTimeMillis();
+        int rows = dailyNutritionService.rebuildAll();
+        System.out.println("✅ Resumen nutricional diario" + shardSuffix() + ": " + rows + " filas en "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private String shardSuffix() {
+        return shards.count() > 1 ? " (shard " + Shards.currentOrHome() + ")" : "";
+    }
+}
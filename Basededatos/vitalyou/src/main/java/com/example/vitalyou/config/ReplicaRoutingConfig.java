@@ -0,0 +1,61 @@
+package com.example.vitalyou.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read replicas, on when vitalyou.datasource.replicas.urls is set (see application-replicas.properties).
+// Replaces Boot's single pool: spring.datasource.* becomes the primary, and every replica gets a pool
+// with the same spring.datasource.hikari.* settings, marked read-only. The one DataSource bean routes
+// @Transactional(readOnly = true) work to the replicas and the rest (writes, Flyway, JdbcTemplate
+// outside a transaction) to the primary.
+@Configuration
+@ConditionalOnProperty("vitalyou.datasource.replicas.urls")
+public class ReplicaRoutingConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${vitalyou.datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${vitalyou.datasource.replicas.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${vitalyou.datasource.replicas.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${vitalyou.datasource.replicas.max-lag:PT5S}")
+    private Duration maxLag;
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties properties, MeterRegistry registry) {
+        HikariDataSource primary = DataSourcePools.create(environment, properties, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), "primary", registry);
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourcePools.create(environment, properties, replicaUrls.get(i).trim(),
+                    replicaUsername, replicaPassword, "replica-" + (i + 1), registry);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaSet(primary, replicas, maxLag, registry);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaSet));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.vitalyou.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Read-only transactions go to a replica picked by the ReplicaSet, everything else to the primary.
+// Inside a write request the reads stay on the primary too, so a PUT never updates a stale copy of the
+// row it looked up and sees its own earlier statements. onPrimary() does the same for a read that must
+// not see replication lag (CatalogVersions).
+// Wrapped in a LazyConnectionDataSourceProxy (ReplicaRoutingConfig), so the choice is made at the
+// first statement, once the transaction's read-only flag is known.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final ReplicaSet replicaSet;
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaSet.PRIMARY, replicaSet.primary());
+        for (HikariDataSource replica : replicaSet.replicas()) {
+            targets.put(replica.getPoolName(), replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.primary());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    // Transactions whose first statement runs inside the work connect to the primary
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(true);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !inWriteRequest()
+                && PRIMARY_ONLY.get() == null ? replicaSet.pick() : ReplicaSet.PRIMARY;
+    }
+
+    private static boolean inWriteRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String method = attributes.getRequest().getMethod();
+            return !HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.vitalyou.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The primary pool plus the replica pools read-only transactions are balanced over (ReplicaRoutingDataSource).
+// Lag guard: every check-interval the primary's replication_heartbeat row is stamped with the current
+// time and read back from each replica. A replica whose last visible stamp is older than max-lag, or
+// that cannot be queried, takes no reads until it catches up; with no replica in sync reads go to the
+// primary. Replicas start out of rotation until their first check.
+// The stamps each replica shows also tell how far it has applied the primary's commits, which
+// replicatedUpTo() exposes for read-your-writes (WriteBehindQueue).
+public class ReplicaSet implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private static final String STAMP = "UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String READ = "SELECT beat_at FROM replication_heartbeat WHERE id = 1";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaSet(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxLag, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("vitalyou.datasource.replica.lag", replica, r -> r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis / 1000.0)
+                    .tag("replica", replica.name()).baseUnit("seconds").register(registry);
+            Gauge.builder("vitalyou.datasource.replica.in.rotation", replica, r -> r.inRotation ? 1 : 0)
+                    .tag("replica", replica.name()).register(registry);
+        }
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    public HikariDataSource primary() {
+        return primary;
+    }
+
+    public List<HikariDataSource> replicas() {
+        return replicas.stream().map(Replica::dataSource).toList();
+    }
+
+    // Round robin over the replicas in rotation; PRIMARY when none is
+    public String pick() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.inRotation) {
+                return replica.name();
+            }
+        }
+        return PRIMARY;
+    }
+
+    // Primary time before which every commit is visible on every replica in rotation, so a row
+    // committed earlier can be read back from whichever one pick() returns. MAX when no replica
+    // is in rotation (reads go to the primary).
+    public LocalDateTime replicatedUpTo() {
+        LocalDateTime upTo = LocalDateTime.MAX;
+        for (Replica replica : replicas) {
+            LocalDateTime beat = replica.beat;
+            if (replica.inRotation && beat != null && beat.isBefore(upTo)) {
+                upTo = beat;
+            }
+        }
+        return upTo;
+    }
+
+    @Scheduled(fixedDelayString = "${vitalyou.datasource.replicas.check-interval:PT1S}")
+    public void checkLag() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            new JdbcTemplate(primary).update(STAMP, now);
+        } catch (Exception e) {
+            System.err.println("⚠️ No se pudo escribir el heartbeat de replicación: " + e.getMessage());
+        }
+
+        for (Replica replica : replicas) {
+            boolean inSync;
+            try {
+                LocalDateTime beat = new JdbcTemplate(replica.dataSource()).queryForObject(READ, LocalDateTime.class);
+                replica.beat = beat;
+                // Never stamped yet counts as out of sync
+                replica.lagMillis = beat != null ? Math.max(0, Duration.between(beat, now).toMillis()) : Long.MAX_VALUE;
+                inSync = replica.lagMillis <= maxLagMillis;
+            } catch (Exception e) {
+                replica.lagMillis = Long.MAX_VALUE;
+                inSync = false;
+            }
+            if (inSync != replica.inRotation) {
+                replica.inRotation = inSync;
+                System.out.println(inSync
+                        ? "✅ Réplica " + replica.name() + " en rotación"
+                        : "⚠️ Réplica " + replica.name() + " fuera de rotación (retraso o sin conexión)");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource().close());
+        primary.close();
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private volatile boolean inRotation;
+        private volatile long lagMillis = Long.MAX_VALUE;
+        // Last heartbeat stamp read from the replica
+        private volatile LocalDateTime beat;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        HikariDataSource dataSource() {
+            return dataSource;
+        }
+
+        String name() {
+            return dataSource.getPoolName();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.controller.MealController;
+import com.example.vitalyou.controller.WorkoutSessionController;
+import com.example.vitalyou.service.Shards;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+// Picks the shard of a request before the handler (and its transaction) runs:
+// - {userId} in the path: that user's shard
+// - /api/meals/{id}, /api/workout-sessions/{id}: the shard holding that row
+// Other requests stay on shard 0, where reference data is written, /api/users/{id} included
+// (UserController deletes the user's sessions on their shard itself); request bodies that name
+// a user (POST /api/meals ...) are routed by the controller.
+class ShardInterceptor implements AsyncHandlerInterceptor {
+
+    // Controllers whose {id} is a row of a sharded table
+    private static final Map<Class<?>, String> ROW_TABLES = Map.of(
+            MealController.class, "meals",
+            WorkoutSessionController.class, "workout_sessions");
+
+    private final Shards shards;
+
+    ShardInterceptor(Shards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return true;
+        }
+        try {
+            if (variables.containsKey("userId")) {
+                Shards.enter(shards.shardOf(Long.valueOf(variables.get("userId"))));
+            } else if (variables.containsKey("id")) {
+                Long id = Long.valueOf(variables.get("id"));
+                if (ROW_TABLES.containsKey(method.getBeanType())) {
+                    shards.locate(ROW_TABLES.get(method.getBeanType()), id).ifPresent(Shards::enter);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // The handler answers 400
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Shards.clear();
+    }
+
+    // Streaming exports continue on another thread; this one is released now
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Shards.clear();
+    }
+}
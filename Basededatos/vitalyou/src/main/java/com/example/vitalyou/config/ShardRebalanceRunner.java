@@ -0,0 +1,35 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.service.ShardRebalancer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Moves users to the shard their id hashes to, after adding a shard to vitalyou.sharding.urls:
+//   java -jar vitalyou.jar --vitalyou.sharding.rebalance=true
+// Before the other maintenance runners, so they find every row on its shard
+@Component
+@Order(9)
+public class ShardRebalanceRunner implements CommandLineRunner {
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Value("${vitalyou.sharding.rebalance:false}")
+    private boolean rebalance;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (!rebalance) {
+            return;
+        }
+
+        System.out.println("🔀 Redistribuyendo usuarios entre shards...");
+        long start = System.currentTimeMillis();
+        int users = shardRebalancer.rebalance();
+        System.out.println("✅ Shards redistribuidos: " + users + " usuarios movidos en "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.service.Shards;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Connects to the shard chosen for the current thread (Shards), shard 0 when none is.
+// Wrapped in a LazyConnectionDataSourceProxy (ShardingConfig), so a transaction picks its shard
+// at its first statement rather than when it begins.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(ShardSet shardSet) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shardSet.size(); shard++) {
+            targets.put(shard, shardSet.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shardSet.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Shards.currentOrHome();
+    }
+}
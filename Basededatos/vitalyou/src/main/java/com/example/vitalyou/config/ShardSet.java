@@ -0,0 +1,32 @@
+package com.example.vitalyou.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+// One pool per shard, shard 0 first (spring.datasource.*)
+public class ShardSet implements AutoCloseable {
+
+    private final List<HikariDataSource> pools;
+
+    public ShardSet(List<HikariDataSource> pools) {
+        this.pools = List.copyOf(pools);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    public HikariDataSource get(int shard) {
+        return pools.get(shard);
+    }
+
+    public List<HikariDataSource> pools() {
+        return pools;
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.vitalyou.config;
+
+import com.example.vitalyou.service.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Sharding, on when vitalyou.sharding.urls is set (see application-shards.properties).
+// spring.datasource.* is shard 0 and each URL adds a shard, all with the spring.datasource.hikari.*
+// settings. Flyway migrates every shard; the one DataSource bean routes to the current thread's shard,
+// which ShardInterceptor sets from the user (or row) a request is about.
+@Configuration
+@ConditionalOnProperty("vitalyou.sharding.urls")
+public class ShardingConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${vitalyou.sharding.urls}")
+    private List<String> shardUrls;
+
+    @Value("${vitalyou.sharding.username:${spring.datasource.username:}}")
+    private String shardUsername;
+
+    @Value("${vitalyou.sharding.password:${spring.datasource.password:}}")
+    private String shardPassword;
+
+    @Bean
+    public ShardSet shardSet(DataSourceProperties properties, MeterRegistry registry) {
+        if (environment.containsProperty("vitalyou.datasource.replicas.urls")) {
+            throw new IllegalStateException("vitalyou.sharding.urls and vitalyou.datasource.replicas.urls cannot be combined");
+        }
+        List<HikariDataSource> pools = new ArrayList<>(shardUrls.size() + 1);
+        pools.add(DataSourcePools.create(environment, properties, properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), "shard-0", registry));
+        for (int i = 0; i < shardUrls.size(); i++) {
+            pools.add(DataSourcePools.create(environment, properties, shardUrls.get(i).trim(),
+                    shardUsername, shardPassword, "shard-" + (i + 1), registry));
+        }
+        return new ShardSet(pools);
+    }
+
+    @Bean
+    public DataSource dataSource(ShardSet shardSet) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardSet));
+    }
+
+    // Same migrations, same settings, on every shard
+    @Bean
+    public FlywayMigrationStrategy shardMigrations(ShardSet shardSet) {
+        return flyway -> {
+            for (HikariDataSource shard : shardSet.pools()) {
+                Flyway.configure().configuration(flyway.getConfiguration()).dataSource(shard).load().migrate();
+            }
+        };
+    }
+
+    @Bean
+    public WebMvcConfigurer shardRouting(Shards shards) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new ShardInterceptor(shards)).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.vitalyou.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Second-level cache statistics: Hibernate hit/miss/put per region plus Caffeine evictions (JCache MBeans)
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @GetMapping("/stats")
+    public Map<String, Object> getCacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Long> evictions = evictionsByCache();
+
+        Map<String, Object> regions = new TreeMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("hits", region.getHitCount());
+            stats.put("misses", region.getMissCount());
+            stats.put("puts", region.getPutCount());
+            stats.put("evictions", evictions.getOrDefault(name, 0L));
+            regions.put(name, stats);
+        }
+
+        Map<String, Object> queries = new HashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", statistics.isStatisticsEnabled());
+        response.put("regions", regions);
+        response.put("queryCache", queries);
+        response.put("hits", statistics.getSecondLevelCacheHitCount());
+        response.put("misses", statistics.getSecondLevelCacheMissCount());
+        response.put("puts", statistics.getSecondLevelCachePutCount());
+        return response;
+    }
+
+    // Caffeine publishes one CacheStatistics MBean per cache (monitoring.statistics in caffeine.conf)
+    private Map<String, Long> evictionsByCache() {
+        Map<String, Long> evictions = new HashMap<>();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                Object value = server.getAttribute(name, "CacheEvictions");
+                if (value instanceof Number number) {
+                    evictions.merge(name.getKeyProperty("Cache"), number.longValue(), Long::sum);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return evictions;
+    }
+}
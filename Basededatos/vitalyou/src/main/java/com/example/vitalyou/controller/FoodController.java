@@ -2,27 +2,48 @@ package com.example.vitalyou.controller;
 
 import com.example.vitalyou.model.Food;
 import com.example.vitalyou.repository.FoodRepository;
+import com.example.vitalyou.service.CatalogVersions;
+import com.example.vitalyou.service.CatalogVersions.Catalog;
+import com.example.vitalyou.service.FoodImportService;
+import com.example.vitalyou.service.FoodSearchIndex;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/foods")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class FoodController {
 
     @Autowired
     private FoodRepository foodRepository;
 
-    // Get all foods
+    @Autowired
+    private FoodSearchIndex foodSearchIndex;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private FoodImportService foodImportService;
+
+    // Get all foods (304 without a query while the catalog is unchanged)
     @GetMapping
-    public ResponseEntity<List<Food>> getAllFoods() {
+    public ResponseEntity<List<Food>> getAllFoods(WebRequest request) {
         try {
-            List<Food> foods = foodRepository.findByOrderByNameAsc();
-            return ResponseEntity.ok(foods);
+            return ConditionalGet.respond(request, catalogVersions.etag(Catalog.FOODS, "foods"),
+                    () -> catalogVersions.read(Catalog.FOODS, foodRepository::findByOrderByNameAsc));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -47,6 +68,8 @@ public class FoodController {
     public ResponseEntity<Food> createFood(@RequestBody Food food) {
         try {
             Food savedFood = foodRepository.save(food);
+            foodSearchIndex.put(savedFood);
+            catalogVersions.bump(Catalog.FOODS);
             return ResponseEntity.ok(savedFood);
         } catch (Exception e) {
             e.printStackTrace();
@@ -82,6 +105,8 @@ public class FoodController {
                 }
                 
                 Food updatedFood = foodRepository.save(food);
+                foodSearchIndex.put(updatedFood);
+                catalogVersions.bump(Catalog.FOODS);
                 return ResponseEntity.ok(updatedFood);
             } else {
                 return ResponseEntity.notFound().build();
@@ -98,6 +123,8 @@ public class FoodController {
         try {
             if (foodRepository.existsById(id)) {
                 foodRepository.deleteById(id);
+                foodSearchIndex.remove(id);
+                catalogVersions.bump(Catalog.FOODS);
                 return ResponseEntity.ok().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -108,15 +135,67 @@ public class FoodController {
         }
     }
 
-    // Search foods by name
+    // Bulk import from a CSV body (see FoodImportService for the format); 409 while another import runs.
+    // The body is spooled to a temporary file, which the import then memory-maps
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain", "application/octet-stream"})
+    public ResponseEntity<FoodImportService.Report> importFoods(HttpServletRequest request) {
+        if (foodImportService.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile("foods-import-", ".csv");
+            Files.copy(request.getInputStream(), file, StandardCopyOption.REPLACE_EXISTING);
+            return foodImportService.importFile(file)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.internalServerError().build();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    // Progress of the running (or last) import
+    @GetMapping("/import/progress")
+    public ResponseEntity<FoodImportService.Progress> getImportProgress() {
+        return ResponseEntity.ok(foodImportService.progress());
+    }
+
+    // Search foods by name (prefix matches first, then substring matches)
     @GetMapping("/search")
-    public ResponseEntity<List<Food>> searchFoods(@RequestParam("q") String query) {
+    public ResponseEntity<List<Food>> searchFoods(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "" + FoodSearchIndex.DEFAULT_LIMIT) int limit) {
         try {
-            List<Food> foods = foodRepository.findByNameContainingIgnoreCase(query);
+            if (!foodSearchIndex.isReady()) {
+                // Index still loading at startup: fall back to the database
+                List<Food> foods = foodRepository.findByNameContainingIgnoreCase(query);
+                int max = Math.max(1, Math.min(limit, FoodSearchIndex.MAX_LIMIT));
+                return ResponseEntity.ok(foods.subList(0, Math.min(foods.size(), max)));
+            }
+            List<Food> foods = foodSearchIndex.search(query, limit);
             return ResponseEntity.ok(foods);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pudo borrar el fichero temporal " + file + ": " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package com.example.vitalyou.controller;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Keyset (cursor) pagination shared by the list endpoints.
+// The body stays a plain JSON array; the opaque continuation token for the
+// next page travels in the X-Next-Cursor header and is absent on the last page.
+final class Keyset {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final String SEPARATOR = "|";
+
+    private Keyset() {}
+
+    static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // One extra row tells whether there is a next page
+    static Limit probe(int pageSize) {
+        return Limit.of(pageSize + 1);
+    }
+
+    static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Throws IllegalArgumentException on a malformed cursor. The last key may contain the
+    // separator, so free text (a name) goes last
+    static String[] decode(String cursor, int parts) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] keys = raw.split("\\" + SEPARATOR, parts);
+        if (keys.length != parts) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return keys;
+    }
+
+    // Fold rows accepted by the write-behind queue (already filtered to this page's key range)
+    // into a page read from the database: same order, no duplicates (a row may have been
+    // committed in between), at most limit rows
+    static <T> List<T> merge(List<T> rows, Collection<T> pending, Comparator<T> order,
+                             Function<T, Long> idOf, int limit) {
+        if (pending.isEmpty()) {
+            return rows;
+        }
+        Set<Long> ids = new HashSet<>();
+        List<T> merged = new ArrayList<>(rows.size() + pending.size());
+        for (T row : rows) {
+            ids.add(idOf.apply(row));
+            merged.add(row);
+        }
+        for (T row : pending) {
+            if (ids.add(idOf.apply(row))) {
+                merged.add(row);
+            }
+        }
+        merged.sort(order);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    // Trim the probe row, map rows to their API view and attach the cursor of the last returned row
+    static <T, V> ResponseEntity<List<V>> page(List<T> rows, int pageSize, Function<T, String> cursorOf,
+                                               Function<T, V> view) {
+        if (rows.size() <= pageSize) {
+            return ResponseEntity.ok(rows.stream().map(view).toList());
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(pageSize - 1)))
+                .body(page.stream().map(view).toList());
+    }
+}
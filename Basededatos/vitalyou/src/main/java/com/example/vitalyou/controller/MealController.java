@@ -1,16 +1,29 @@
 package com.example.vitalyou.controller;
 
+import com.example.vitalyou.dto.MealView;
+import com.example.vitalyou.dto.NutritionDay;
+import com.example.vitalyou.model.DailyNutrition;
 import com.example.vitalyou.model.Meal;
-import com.example.vitalyou.model.User;
-import com.example.vitalyou.model.Food;
 import com.example.vitalyou.repository.MealRepository;
-import com.example.vitalyou.repository.UserRepository;
-import com.example.vitalyou.repository.FoodRepository;
+import com.example.vitalyou.service.DailyNutritionService;
+import com.example.vitalyou.service.ExportService;
+import com.example.vitalyou.service.MealService;
+import com.example.vitalyou.service.Shards;
+import com.example.vitalyou.service.UserExistence;
+import com.example.vitalyou.service.WriteBehindQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -18,61 +31,132 @@ import java.util.HashMap;
 
 @RestController
 @RequestMapping("/api/meals")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Keyset.NEXT_CURSOR_HEADER)
 public class MealController {
 
+    private static final int MAX_RANGE_DAYS = 366;
+
+    // Keyset order of the meal lists: newest date first, then newest id
+    private static final Comparator<Meal> NEWEST_FIRST =
+            Comparator.comparing(Meal::getDate).thenComparing(Meal::getId).reversed();
+
     @Autowired
     private MealRepository mealRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistence userExistence;
+    
+    @Autowired
+    private MealService mealService;
+    
+    @Autowired
+    private DailyNutritionService dailyNutritionService;
     
     @Autowired
-    private FoodRepository foodRepository;
+    private ExportService exportService;
 
-    // Get all meals
+    @Autowired
+    private WriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private Shards shards;
+
+    // Get all meals, one keyset page at a time (newest date first), merged across shards
     @GetMapping
-    public ResponseEntity<List<Meal>> getAllMeals() {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<MealView>> getAllMeals(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         try {
-            List<Meal> meals = mealRepository.findAll();
-            return ResponseEntity.ok(meals);
+            int pageSize = Keyset.pageSize(limit);
+            String[] keys = cursor != null ? Keyset.decode(cursor, 2) : null;
+            LocalDate afterDate = keys != null ? LocalDate.parse(keys[0]) : null;
+            Long afterId = keys != null ? Long.valueOf(keys[1]) : null;
+            List<Meal> meals = shards.gather(NEWEST_FIRST, pageSize + 1, () -> keys == null
+                    ? mealRepository.findFirstPage(Keyset.probe(pageSize))
+                    : mealRepository.findPageAfter(afterDate, afterId, Keyset.probe(pageSize)));
+            return Keyset.page(meals, pageSize, MealController::cursorOf, MealView::from);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    // Get meals by user ID
+    // Get meals by user ID, one keyset page at a time (newest date first)
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Meal>> getMealsByUserId(@PathVariable Long userId) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<MealView>> getMealsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         try {
-            Optional<User> user = userRepository.findById(userId);
-            if (user.isPresent()) {
-                List<Meal> meals = mealRepository.findByUserOrderByCreatedAtDesc(user.get());
-                return ResponseEntity.ok(meals);
+            int pageSize = Keyset.pageSize(limit);
+            List<Meal> meals;
+            LocalDate afterDate = null;
+            Long afterId = null;
+            if (cursor == null) {
+                meals = mealRepository.findFirstPageByUserId(userId, Keyset.probe(pageSize));
             } else {
+                String[] keys = Keyset.decode(cursor, 2);
+                afterDate = LocalDate.parse(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+                meals = mealRepository.findPageByUserIdAfter(userId, afterDate, afterId, Keyset.probe(pageSize));
+            }
+            // Read-your-writes: meals accepted by the write-behind queue but not committed yet
+            List<Meal> pending = new ArrayList<>();
+            for (Meal meal : writeBehindQueue.pendingMeals(userId)) {
+                if (afterDate == null || meal.getDate().isBefore(afterDate)
+                        || (meal.getDate().equals(afterDate) && meal.getId() < afterId)) {
+                    pending.add(meal);
+                }
+            }
+            meals = Keyset.merge(meals, pending, NEWEST_FIRST, Meal::getId, pageSize + 1);
+            // An empty page is the only case that needs to know whether the user exists
+            if (meals.isEmpty() && !userExistence.exists(userId)) {
                 return ResponseEntity.notFound().build();
             }
+            return Keyset.page(meals, pageSize, MealController::cursorOf, MealView::from);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    // Export a user's full meal history as newline-delimited JSON
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportMeals(
+            @PathVariable Long userId,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        if (!userExistence.exists(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return NdjsonExport.stream("meals-" + userId + ".ndjson", acceptEncoding,
+                out -> shards.forUser(userId, () -> exportService.writeMeals(userId, out)));
+    }
+
     // Get meals by user and date
     @GetMapping("/user/{userId}/date/{date}")
-    public ResponseEntity<List<Meal>> getMealsByUserAndDate(
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<MealView>> getMealsByUserAndDate(
             @PathVariable Long userId, 
             @PathVariable String date) {
         try {
-            Optional<User> user = userRepository.findById(userId);
-            if (user.isPresent()) {
-                LocalDate mealDate = LocalDate.parse(date);
-                List<Meal> meals = mealRepository.findByUserAndDateOrderByCreatedAtDesc(user.get(), mealDate);
-                return ResponseEntity.ok(meals);
-            } else {
+            LocalDate mealDate = LocalDate.parse(date);
+            List<Meal> meals = mealRepository.findByUserIdAndDateOrderByCreatedAtDesc(userId, mealDate);
+            List<Meal> pending = writeBehindQueue.pendingMeals(userId).stream()
+                    .filter(meal -> meal.getDate().equals(mealDate))
+                    .toList();
+            meals = Keyset.merge(meals, pending, Comparator.comparing(Meal::getCreatedAt,
+                    Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed(),
+                    Meal::getId, Integer.MAX_VALUE);
+            if (meals.isEmpty() && !userExistence.exists(userId)) {
                 return ResponseEntity.notFound().build();
             }
+            return ResponseEntity.ok(meals.stream().map(MealView::from).toList());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -81,7 +165,7 @@ public class MealController {
 
     // Create new meal
     @PostMapping
-    public ResponseEntity<Meal> createMeal(@RequestBody Map<String, Object> mealData) {
+    public ResponseEntity<MealView> createMeal(@RequestBody Map<String, Object> mealData) {
         try {
             Long userId = Long.valueOf(mealData.get("userId").toString());
             Long foodId = Long.valueOf(mealData.get("foodId").toString());
@@ -89,19 +173,65 @@ public class MealController {
             String mealTypeStr = mealData.get("mealType").toString();
             String dateStr = mealData.get("date").toString();
             
-            Optional<User> user = userRepository.findById(userId);
-            Optional<Food> food = foodRepository.findById(foodId);
+            Meal.MealType mealType = Meal.MealType.valueOf(mealTypeStr);
+            LocalDate date = LocalDate.parse(dateStr);
             
-            if (user.isPresent() && food.isPresent()) {
-                Meal.MealType mealType = Meal.MealType.valueOf(mealTypeStr);
-                LocalDate date = LocalDate.parse(dateStr);
-                
-                Meal meal = new Meal(user.get(), food.get(), quantity, mealType, date);
-                Meal savedMeal = mealRepository.save(meal);
-                return ResponseEntity.ok(savedMeal);
-            } else {
+            // The meal goes to its user's shard, which the path does not name
+            return shards.forUser(userId, () -> saveMeal(userId, foodId, quantity, mealType, date));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<MealView> saveMeal(Long userId, Long foodId, Double quantity,
+                                              Meal.MealType mealType, LocalDate date) {
+        // Write-behind mode: validated and given its id now, stored by the next group commit
+        if (writeBehindQueue.isEnabled()) {
+            Optional<Meal> meal = mealService.prepareMeal(userId, foodId, quantity, mealType, date);
+            if (meal.isEmpty()) {
                 return ResponseEntity.badRequest().build();
             }
+            if (!writeBehindQueue.submit(meal.get())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            return ResponseEntity.accepted().body(MealView.from(meal.get()));
+        }
+        
+        Optional<Meal> savedMeal = mealService.createMeal(userId, foodId, quantity, mealType, date);
+        return savedMeal.map(MealView::from)
+                       .map(ResponseEntity::ok)
+                       .orElse(ResponseEntity.badRequest().build());
+    }
+
+    // Create several meals at once (e.g. all the foods of one lunch) in one transaction
+    @PostMapping("/batch")
+    public ResponseEntity<List<MealView>> createMeals(@RequestBody MealBatchRequest request) {
+        try {
+            if (request.getUserId() == null || request.getItems() == null || request.getItems().isEmpty()
+                    || request.getItems().size() > MealService.MAX_BATCH_SIZE) {
+                return ResponseEntity.badRequest().build();
+            }
+            
+            List<MealService.MealInput> inputs = new ArrayList<>();
+            for (MealBatchRequest.Item item : request.getItems()) {
+                // Items inherit mealType and date from the batch unless they set their own
+                String mealTypeStr = item.getMealType() != null ? item.getMealType() : request.getMealType();
+                String dateStr = item.getDate() != null ? item.getDate() : request.getDate();
+                if (item.getFoodId() == null || item.getQuantity() == null || mealTypeStr == null || dateStr == null) {
+                    return ResponseEntity.badRequest().build();
+                }
+                inputs.add(new MealService.MealInput(item.getFoodId(), item.getQuantity(),
+                        Meal.MealType.valueOf(mealTypeStr), LocalDate.parse(dateStr)));
+            }
+            
+            Optional<List<Meal>> savedMeals = shards.forUser(request.getUserId(),
+                    () -> mealService.createMeals(request.getUserId(), inputs));
+            return savedMeals.map(meals -> meals.stream().map(MealView::from).toList())
+                            .map(ResponseEntity::ok)
+                            .orElse(ResponseEntity.badRequest().build());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
@@ -110,27 +240,26 @@ public class MealController {
 
     // Update meal
     @PutMapping("/{id}")
-    public ResponseEntity<Meal> updateMeal(@PathVariable Long id, @RequestBody Map<String, Object> mealData) {
+    public ResponseEntity<MealView> updateMeal(@PathVariable Long id, @RequestBody Map<String, Object> mealData) {
         try {
-            Optional<Meal> optionalMeal = mealRepository.findById(id);
-            if (optionalMeal.isPresent()) {
-                Meal meal = optionalMeal.get();
-                
-                if (mealData.containsKey("quantity")) {
-                    meal.setQuantity(Double.valueOf(mealData.get("quantity").toString()));
-                }
-                if (mealData.containsKey("mealType")) {
-                    meal.setMealType(Meal.MealType.valueOf(mealData.get("mealType").toString()));
-                }
-                if (mealData.containsKey("date")) {
-                    meal.setDate(LocalDate.parse(mealData.get("date").toString()));
-                }
-                
-                Meal updatedMeal = mealRepository.save(meal);
-                return ResponseEntity.ok(updatedMeal);
-            } else {
-                return ResponseEntity.notFound().build();
+            Double quantity = null;
+            Meal.MealType mealType = null;
+            LocalDate date = null;
+            
+            if (mealData.containsKey("quantity")) {
+                quantity = Double.valueOf(mealData.get("quantity").toString());
             }
+            if (mealData.containsKey("mealType")) {
+                mealType = Meal.MealType.valueOf(mealData.get("mealType").toString());
+            }
+            if (mealData.containsKey("date")) {
+                date = LocalDate.parse(mealData.get("date").toString());
+            }
+            
+            Optional<Meal> updatedMeal = mealService.updateMeal(id, quantity, mealType, date);
+            return updatedMeal.map(MealView::from)
+                             .map(ResponseEntity::ok)
+                             .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -141,8 +270,8 @@ public class MealController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMeal(@PathVariable Long id) {
         try {
-            if (mealRepository.existsById(id)) {
-                mealRepository.deleteById(id);
+            if (mealService.deleteMeal(id)) {
+                writeBehindQueue.forgetMeal(id);
                 return ResponseEntity.ok().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -153,57 +282,163 @@ public class MealController {
         }
     }
     
-    // Get daily nutrition summary
+    // Get daily nutrition summary (read from the daily_nutrition rollup)
     @GetMapping("/nutrition/daily/{userId}/{date}")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> getDailyNutrition(
             @PathVariable Long userId, 
             @PathVariable String date) {
         try {
-            Optional<User> user = userRepository.findById(userId);
-            if (user.isPresent()) {
-                LocalDate mealDate = LocalDate.parse(date);
-                List<Meal> meals = mealRepository.findByUserAndDateOrderByCreatedAtDesc(user.get(), mealDate);
-                
-                double totalCalories = 0;
-                double totalProtein = 0;
-                double totalCarbs = 0;
-                double totalFat = 0;
-                
-                for (Meal meal : meals) {
-                    if (meal.getTotalCalories() != null) {
-                        totalCalories += meal.getTotalCalories();
-                    }
-                    if (meal.getFood() != null && meal.getQuantity() != null) {
-                        Food food = meal.getFood();
-                        double quantity = meal.getQuantity();
-                        
-                        if (food.getProtein() != null) {
-                            totalProtein += food.getProtein() * quantity;
-                        }
-                        if (food.getCarbs() != null) {
-                            totalCarbs += food.getCarbs() * quantity;
-                        }
-                        if (food.getFat() != null) {
-                            totalFat += food.getFat() * quantity;
-                        }
-                    }
+            LocalDate mealDate = LocalDate.parse(date);
+            Optional<DailyNutrition> rollup = dailyNutritionService.find(userId, mealDate);
+            
+            // No row means no meals that day, or an unknown user
+            if (rollup.isEmpty() && !userExistence.exists(userId)) {
+                return ResponseEntity.notFound().build();
+            }
+            DailyNutrition daily = rollup.orElseGet(() -> new DailyNutrition(userId, mealDate));
+            
+            Map<String, Object> caloriesByMealType = new HashMap<>();
+            caloriesByMealType.put(Meal.MealType.BREAKFAST.name(), round(daily.getBreakfastCalories()));
+            caloriesByMealType.put(Meal.MealType.LUNCH.name(), round(daily.getLunchCalories()));
+            caloriesByMealType.put(Meal.MealType.DINNER.name(), round(daily.getDinnerCalories()));
+            caloriesByMealType.put(Meal.MealType.SNACK.name(), round(daily.getSnackCalories()));
+            
+            Map<String, Object> nutrition = new HashMap<>();
+            nutrition.put("totalCalories", round(daily.getTotalCalories()));
+            nutrition.put("totalProtein", round(daily.getTotalProtein()));
+            nutrition.put("totalCarbs", round(daily.getTotalCarbs()));
+            nutrition.put("totalFat", round(daily.getTotalFat()));
+            nutrition.put("mealsCount", daily.getMealsCount());
+            nutrition.put("caloriesByMealType", caloriesByMealType);
+            nutrition.put("date", date);
+            
+            return ResponseEntity.ok(nutrition);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    // Body of POST /api/meals/batch
+    public static class MealBatchRequest {
+        private Long userId;
+        private String mealType;
+        private String date;
+        private List<Item> items;
+        
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+        public String getMealType() { return mealType; }
+        public void setMealType(String mealType) { this.mealType = mealType; }
+        public String getDate() { return date; }
+        public void setDate(String date) { this.date = date; }
+        public List<Item> getItems() { return items; }
+        public void setItems(List<Item> items) { this.items = items; }
+        
+        public static class Item {
+            private Long foodId;
+            private Double quantity;
+            private String mealType;
+            private String date;
+            
+            public Long getFoodId() { return foodId; }
+            public void setFoodId(Long foodId) { this.foodId = foodId; }
+            public Double getQuantity() { return quantity; }
+            public void setQuantity(Double quantity) { this.quantity = quantity; }
+            public String getMealType() { return mealType; }
+            public void setMealType(String mealType) { this.mealType = mealType; }
+            public String getDate() { return date; }
+            public void setDate(String date) { this.date = date; }
+        }
+    }
+    
+    private static String cursorOf(Meal meal) {
+        return Keyset.encode(meal.getDate(), meal.getId());
+    }
+    
+    // Get per-day nutrition for the last N days (ending today or at ?end=) with totals and averages
+    @GetMapping("/nutrition/range/{userId}")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<String, Object>> getNutritionRange(
+            @PathVariable Long userId,
+            @RequestParam(value = "days", defaultValue = "7") int days,
+            @RequestParam(value = "end", required = false) String end) {
+        try {
+            if (days < 1 || days > MAX_RANGE_DAYS) {
+                return ResponseEntity.badRequest().build();
+            }
+            LocalDate endDate = end != null ? LocalDate.parse(end) : LocalDate.now();
+            LocalDate startDate = endDate.minusDays(days - 1);
+            
+            List<NutritionDay> series = dailyNutritionService.findRange(userId, startDate, endDate);
+            
+            double totalCalories = 0;
+            double totalProtein = 0;
+            double totalCarbs = 0;
+            double totalFat = 0;
+            int mealsCount = 0;
+            int daysLogged = 0;
+            List<Map<String, Object>> seriesJson = new ArrayList<>(series.size());
+            for (NutritionDay day : series) {
+                totalCalories += day.calories();
+                totalProtein += day.protein();
+                totalCarbs += day.carbs();
+                totalFat += day.fat();
+                mealsCount += day.mealsCount();
+                if (day.mealsCount() > 0) {
+                    daysLogged++;
                 }
                 
-                Map<String, Object> nutrition = new HashMap<>();
-                nutrition.put("totalCalories", totalCalories);
-                nutrition.put("totalProtein", totalProtein);
-                nutrition.put("totalCarbs", totalCarbs);
-                nutrition.put("totalFat", totalFat);
-                nutrition.put("mealsCount", meals.size());
-                nutrition.put("date", date);
-                
-                return ResponseEntity.ok(nutrition);
-            } else {
+                Map<String, Object> point = new HashMap<>();
+                point.put("date", day.date().toString());
+                point.put("calories", round(day.calories()));
+                point.put("protein", round(day.protein()));
+                point.put("carbs", round(day.carbs()));
+                point.put("fat", round(day.fat()));
+                point.put("mealsCount", day.mealsCount());
+                seriesJson.add(point);
+            }
+            
+            // Only check the user when there is nothing to show, to keep the 404
+            if (daysLogged == 0 && !userExistence.exists(userId)) {
                 return ResponseEntity.notFound().build();
             }
+            
+            Map<String, Object> totals = new HashMap<>();
+            totals.put("calories", round(totalCalories));
+            totals.put("protein", round(totalProtein));
+            totals.put("carbs", round(totalCarbs));
+            totals.put("fat", round(totalFat));
+            totals.put("mealsCount", mealsCount);
+            
+            Map<String, Object> averages = new HashMap<>();
+            averages.put("calories", round(totalCalories / days));
+            averages.put("protein", round(totalProtein / days));
+            averages.put("carbs", round(totalCarbs / days));
+            averages.put("fat", round(totalFat / days));
+            
+            Map<String, Object> range = new HashMap<>();
+            range.put("userId", userId);
+            range.put("startDate", startDate.toString());
+            range.put("endDate", endDate.toString());
+            range.put("days", days);
+            range.put("daysLogged", daysLogged);
+            range.put("series", seriesJson);
+            range.put("totals", totals);
+            range.put("averages", averages);
+            
+            return ResponseEntity.ok(range);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
+    
+    // Rollup sums are incremented and decremented, so trim floating point residue
+    private static double round(Double value) {
+        return value == null ? 0 : Math.round(value * 100.0) / 100.0;
+    }
 }
@@ -0,0 +1,46 @@
+package com.example.vitalyou.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Streams an NDJSON export straight to the response, gzip-compressed when the client accepts it
+final class NdjsonExport {
+
+    static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+    interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private NdjsonExport() {}
+
+    static ResponseEntity<StreamingResponseBody> stream(String filename, String acceptEncoding, Body body) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody stream = out -> {
+            if (gzip) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 8192);
+                body.writeTo(zipped);
+                zipped.finish();
+            } else {
+                body.writeTo(out);
+            }
+            out.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(stream);
+    }
+}
@@ -1,9 +1,9 @@
 package com.example.vitalyou.controller;
 
-import com.example.vitalyou.repository.UserRepository;
-import com.example.vitalyou.repository.WorkoutRepository;
-import com.example.vitalyou.repository.WorkoutSessionRepository;
+import com.example.vitalyou.model.*;
+import com.example.vitalyou.service.EntityCounters;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -18,13 +18,10 @@ import java.util.Map;
 public class TestController {
 
     @Autowired
-    private UserRepository userRepository;
+    private EntityCounters entityCounters;
 
     @Autowired
-    private WorkoutRepository workoutRepository;
-
-    @Autowired
-    private WorkoutSessionRepository workoutSessionRepository;
+    private HealthEndpoint healthEndpoint;
 
     @GetMapping("/test")
     public Map<String, Object> test() {
@@ -33,11 +30,14 @@ public class TestController {
         response.put("message", "VitalYou API funcionando correctamente");
         response.put("timestamp", java.time.LocalDateTime.now());
         
-        // Estadísticas de la base de datos
+        // Estadísticas de la base de datos (contadores en memoria, sin COUNT(*))
         Map<String, Object> stats = new HashMap<>();
-        stats.put("users", userRepository.count());
-        stats.put("workouts", workoutRepository.count());
-        stats.put("sessions", workoutSessionRepository.count());
+        stats.put("users", entityCounters.get(User.class));
+        stats.put("workouts", entityCounters.get(Workout.class));
+        stats.put("sessions", entityCounters.get(WorkoutSession.class));
+        stats.put("meals", entityCounters.get(Meal.class));
+        stats.put("foods", entityCounters.get(Food.class));
+        stats.put("exercises", entityCounters.get(Exercise.class));
         response.put("database_stats", stats);
 
         // Enlaces útiles
@@ -46,6 +46,7 @@ public class TestController {
         endpoints.put("workouts", "/api/workouts");
         endpoints.put("sessions", "/api/workout-sessions");
         endpoints.put("h2_console", "/h2-console");
+        endpoints.put("metrics", "/actuator/prometheus");
         response.put("available_endpoints", endpoints);
 
         return response;
@@ -54,7 +55,8 @@ public class TestController {
     @GetMapping("/health")
     public Map<String, String> health() {
         Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
+        // Real status from Actuator (database, disk...); details at /actuator/health
+        response.put("status", healthEndpoint.health().getStatus().getCode());
         response.put("service", "VitalYou Backend");
         response.put("version", "1.0.0");
         return response;
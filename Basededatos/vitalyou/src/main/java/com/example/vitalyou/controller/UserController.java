@@ -2,25 +2,52 @@ package com.example.vitalyou.controller;
 
 import com.example.vitalyou.model.User;
 import com.example.vitalyou.repository.UserRepository;
+import com.example.vitalyou.service.CalorieRecomputeService;
+import com.example.vitalyou.service.Shards;
+import com.example.vitalyou.service.UserExistence;
+import com.example.vitalyou.service.WorkoutSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/users")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Keyset.NEXT_CURSOR_HEADER)
 public class UserController {
 
     @Autowired
     private UserRepository userRepository;
 
-    // Obtener todos los usuarios
+    @Autowired
+    private CalorieRecomputeService calorieRecomputeService;
+
+    @Autowired
+    private UserExistence userExistence;
+
+    @Autowired
+    private WorkoutSessionService workoutSessionService;
+
+    @Autowired
+    private Shards shards;
+
+    // Obtener todos los usuarios, por páginas (keyset sobre id)
     @GetMapping
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public ResponseEntity<List<User>> getAllUsers(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            int pageSize = Keyset.pageSize(limit);
+            Long afterId = cursor == null ? 0L : Long.valueOf(Keyset.decode(cursor, 1)[0]);
+            List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Keyset.probe(pageSize));
+            return Keyset.page(users, pageSize, user -> Keyset.encode(user.getId()), user -> user);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     // Obtener usuario por ID
@@ -33,7 +60,7 @@ public class UserController {
     // Crear nuevo usuario
     @PostMapping
     public User createUser(@RequestBody User user) {
-        return userRepository.save(user);
+        return saveNew(user);
     }
 
     // Actualizar usuario
@@ -53,6 +80,7 @@ public class UserController {
             if (userDetails.getAge() != null) {
                 user.setAge(userDetails.getAge());
             }
+            boolean weightChanged = userDetails.getWeight() != null && !Objects.equals(userDetails.getWeight(), user.getWeight());
             if (userDetails.getWeight() != null) {
                 user.setWeight(userDetails.getWeight());
             }
@@ -63,16 +91,40 @@ public class UserController {
                 user.setFitnessGoal(userDetails.getFitnessGoal());
             }
             
-            return ResponseEntity.ok(userRepository.save(user));
+            User saved = userRepository.save(user);
+            // Las calorías de las sesiones dependen del peso: recalcularlas con el nuevo, en segundo plano
+            if (weightChanged) {
+                calorieRecomputeService.recomputeUserLater(id);
+            }
+            return ResponseEntity.ok(saved);
         }
         return ResponseEntity.notFound().build();
     }
 
+    // Recalcular las calorías de todas las sesiones del usuario
+    @PostMapping("/{id}/recompute-calories")
+    public ResponseEntity<Map<String, Integer>> recomputeCalories(@PathVariable Long id) {
+        if (!userExistence.exists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("updatedSessions", calorieRecomputeService.recomputeUser(id)));
+    }
+
     // Eliminar usuario
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         if (userRepository.existsById(id)) {
+            // Con shards, el usuario se borra en el shard 0 y desde ahí en los demás; sus sesiones
+            // viven en su shard y se borran antes allí
+            int owner = shards.shardOf(id);
+            if (owner != 0) {
+                shards.on(owner, () -> {
+                    workoutSessionService.deleteUserSessions(id);
+                    return null;
+                });
+            }
             userRepository.deleteById(id);
+            userExistence.forget(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -88,7 +140,14 @@ public class UserController {
     // Registro simple
     @PostMapping("/register")
     public User register(@RequestBody User user) {
-        return userRepository.save(user);
+        return saveNew(user);
+    }
+
+    // Los endpoints por usuario ya no necesitan consultarlo para saber que existe
+    private User saveNew(User user) {
+        User saved = userRepository.save(user);
+        userExistence.remember(saved.getId());
+        return saved;
     }
 
     // Clase interna para login request
@@ -1,20 +1,32 @@
 package com.example.vitalyou.controller;
 
+import com.example.vitalyou.dto.WorkoutView;
 import com.example.vitalyou.model.Workout;
-import com.example.vitalyou.model.User;
 import com.example.vitalyou.repository.WorkoutRepository;
 import com.example.vitalyou.repository.UserRepository;
+import com.example.vitalyou.repository.WorkoutSpecifications;
+import com.example.vitalyou.service.CatalogVersions;
+import com.example.vitalyou.service.CatalogVersions.Catalog;
+import com.example.vitalyou.service.UserExistence;
+import com.example.vitalyou.service.WorkoutRecommender;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/workouts")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, Keyset.NEXT_CURSOR_HEADER})
 public class WorkoutController {
 
     @Autowired
@@ -23,22 +35,35 @@ public class WorkoutController {
     @Autowired
     private UserRepository userRepository;
 
-    // Obtener todos los workouts
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private UserExistence userExistence;
+
+    @Autowired
+    private WorkoutRecommender workoutRecommender;
+
+    // Obtener todos los workouts (304 sin consultar mientras el catálogo no cambie)
     @GetMapping
-    public List<Workout> getAllWorkouts() {
-        return workoutRepository.findAll();
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutView>> getAllWorkouts(WebRequest request) {
+        return ConditionalGet.respond(request, catalogVersions.etag(Catalog.WORKOUTS, "workouts"),
+                () -> catalogVersions.read(Catalog.WORKOUTS,
+                        () -> workoutRepository.findAll().stream().map(WorkoutView::from).toList()));
     }
 
-    // Obtener workout por ID
+    // Obtener workout por ID (con sus ejercicios)
     @GetMapping("/{id}")
-    public ResponseEntity<Workout> getWorkoutById(@PathVariable Long id) {
-        Optional<Workout> workout = workoutRepository.findById(id);
-        return workout.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    @Transactional(readOnly = true)
+    public ResponseEntity<WorkoutView> getWorkoutById(@PathVariable Long id) {
+        Optional<Workout> workout = workoutRepository.findWithExercisesById(id);
+        return workout.map(WorkoutView::withExercises).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
     // Crear nuevo workout
     @PostMapping
-    public ResponseEntity<Workout> createWorkout(@RequestBody Map<String, Object> workoutData) {
+    public ResponseEntity<WorkoutView> createWorkout(@RequestBody Map<String, Object> workoutData) {
         try {
             Workout workout = new Workout();
             workout.setName((String) workoutData.get("name"));
@@ -56,14 +81,14 @@ public class WorkoutController {
             // Set user if provided (for personal workouts)
             if (workoutData.get("userId") != null) {
                 Long userId = Long.valueOf(workoutData.get("userId").toString());
-                Optional<User> user = userRepository.findById(userId);
-                if (user.isPresent()) {
-                    workout.setUser(user.get());
+                if (userExistence.exists(userId)) {
+                    workout.setUser(userRepository.getReferenceById(userId));
                 }
             }
             
             Workout savedWorkout = workoutRepository.save(workout);
-            return ResponseEntity.ok(savedWorkout);
+            catalogVersions.bump(Catalog.WORKOUTS);
+            return ResponseEntity.ok(WorkoutView.from(savedWorkout));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
@@ -72,7 +97,7 @@ public class WorkoutController {
 
     // Actualizar workout
     @PutMapping("/{id}")
-    public ResponseEntity<Workout> updateWorkout(@PathVariable Long id, @RequestBody Workout workoutDetails) {
+    public ResponseEntity<WorkoutView> updateWorkout(@PathVariable Long id, @RequestBody Workout workoutDetails) {
         Optional<Workout> optionalWorkout = workoutRepository.findById(id);
         if (optionalWorkout.isPresent()) {
             Workout workout = optionalWorkout.get();
@@ -82,7 +107,9 @@ public class WorkoutController {
             workout.setDifficulty(workoutDetails.getDifficulty());
             workout.setDuration(workoutDetails.getDuration());
             workout.setExercises(workoutDetails.getExercises());
-            return ResponseEntity.ok(workoutRepository.save(workout));
+            Workout updatedWorkout = workoutRepository.save(workout);
+            catalogVersions.bump(Catalog.WORKOUTS);
+            return ResponseEntity.ok(WorkoutView.from(updatedWorkout));
         }
         return ResponseEntity.notFound().build();
     }
@@ -92,17 +119,97 @@ public class WorkoutController {
     public ResponseEntity<Void> deleteWorkout(@PathVariable Long id) {
         if (workoutRepository.existsById(id)) {
             workoutRepository.deleteById(id);
+            catalogVersions.bump(Catalog.WORKOUTS);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
 
+    // Búsqueda combinada, por páginas: cualquier combinación de filtros en una sola consulta.
+    //   scope: global | user | available (global + los del usuario), con userId; sin scope, todos
+    //   category, difficulty, minDuration / maxDuration (minutos), name (prefijo del nombre)
+    //   sort: name (por defecto) | duration; empates por id, así que el orden es estable entre páginas
+    @GetMapping("/query")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutView>> queryWorkouts(
+            @RequestParam(value = "scope", required = false) String scope,
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "difficulty", required = false) String difficulty,
+            @RequestParam(value = "minDuration", required = false) Integer minDuration,
+            @RequestParam(value = "maxDuration", required = false) Integer maxDuration,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "sort", defaultValue = "name") String sort,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            List<Specification<Workout>> filters = new ArrayList<>();
+            if (scope != null) {
+                String normalized = scope.toLowerCase(Locale.ROOT);
+                if (normalized.equals("global")) {
+                    filters.add(WorkoutSpecifications.global());
+                } else if (normalized.equals("user") || normalized.equals("available")) {
+                    if (userId == null) {
+                        return ResponseEntity.badRequest().build();
+                    }
+                    if (!userExistence.exists(userId)) {
+                        return ResponseEntity.notFound().build();
+                    }
+                    filters.add(normalized.equals("user") ? WorkoutSpecifications.ownedBy(userId)
+                            : WorkoutSpecifications.availableTo(userId));
+                } else {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+            if (category != null) {
+                filters.add(WorkoutSpecifications.category(Workout.Category.valueOf(category.toUpperCase(Locale.ROOT))));
+            }
+            if (difficulty != null) {
+                filters.add(WorkoutSpecifications.difficulty(Workout.Difficulty.valueOf(difficulty.toUpperCase(Locale.ROOT))));
+            }
+            if (minDuration != null) {
+                filters.add(WorkoutSpecifications.durationAtLeast(minDuration));
+            }
+            if (maxDuration != null) {
+                filters.add(WorkoutSpecifications.durationAtMost(maxDuration));
+            }
+            if (name != null && !name.isBlank()) {
+                filters.add(WorkoutSpecifications.nameStartsWith(name.trim()));
+            }
+
+            boolean byDuration = sort.equalsIgnoreCase("duration");
+            if (!byDuration && !sort.equalsIgnoreCase("name")) {
+                return ResponseEntity.badRequest().build();
+            }
+            // El cursor lleva id y clave de orden (el nombre al final, puede contener el separador)
+            if (cursor != null) {
+                String[] keys = Keyset.decode(cursor, 2);
+                Long afterId = Long.valueOf(keys[0]);
+                filters.add(byDuration
+                        ? WorkoutSpecifications.afterDuration(keys[1].isEmpty() ? null : Integer.valueOf(keys[1]), afterId)
+                        : WorkoutSpecifications.afterName(keys[1], afterId));
+            }
+
+            int pageSize = Keyset.pageSize(limit);
+            Sort order = Sort.by(byDuration ? "duration" : "name", "id");
+            List<Workout> workouts = workoutRepository.findBy(Specification.allOf(filters),
+                    query -> query.sortBy(order).limit(pageSize + 1).all());
+            return Keyset.page(workouts, pageSize,
+                    workout -> Keyset.encode(workout.getId(),
+                            byDuration ? (workout.getDuration() != null ? workout.getDuration() : "") : workout.getName()),
+                    WorkoutView::from);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Buscar workouts por categoría
     @GetMapping("/category/{category}")
-    public List<Workout> getWorkoutsByCategory(@PathVariable String category) {
+    @Transactional(readOnly = true)
+    public List<WorkoutView> getWorkoutsByCategory(@PathVariable String category) {
         try {
             Workout.Category categoryEnum = Workout.Category.valueOf(category.toUpperCase());
-            return workoutRepository.findByCategory(categoryEnum);
+            return workoutRepository.findByCategory(categoryEnum).stream().map(WorkoutView::from).toList();
         } catch (IllegalArgumentException e) {
             return List.of(); // Retorna lista vacía si la categoría no existe
         }
@@ -110,21 +217,24 @@ public class WorkoutController {
 
     // Buscar workouts por nivel de dificultad
     @GetMapping("/difficulty/{difficulty}")
-    public List<Workout> getWorkoutsByDifficulty(@PathVariable String difficulty) {
+    @Transactional(readOnly = true)
+    public List<WorkoutView> getWorkoutsByDifficulty(@PathVariable String difficulty) {
         try {
             Workout.Difficulty difficultyEnum = Workout.Difficulty.valueOf(difficulty.toUpperCase());
-            return workoutRepository.findByDifficulty(difficultyEnum);
+            return workoutRepository.findByDifficulty(difficultyEnum).stream().map(WorkoutView::from).toList();
         } catch (IllegalArgumentException e) {
             return List.of(); // Retorna lista vacía si la dificultad no existe
         }
     }
     
-    // Get all global workouts (no user assigned)
+    // Get all global workouts (no user assigned); 304 without a query while the catalog is unchanged
     @GetMapping("/global")
-    public ResponseEntity<List<Workout>> getGlobalWorkouts() {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutView>> getGlobalWorkouts(WebRequest request) {
         try {
-            List<Workout> workouts = workoutRepository.findByUserIsNull();
-            return ResponseEntity.ok(workouts);
+            return ConditionalGet.respond(request, catalogVersions.etag(Catalog.WORKOUTS, "global-workouts"),
+                    () -> catalogVersions.read(Catalog.WORKOUTS,
+                            () -> workoutRepository.findByUserIsNull().stream().map(WorkoutView::from).toList()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -133,15 +243,15 @@ public class WorkoutController {
     
     // Get user-specific workouts
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Workout>> getUserWorkouts(@PathVariable Long userId) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutView>> getUserWorkouts(@PathVariable Long userId) {
         try {
-            Optional<User> user = userRepository.findById(userId);
-            if (user.isPresent()) {
-                List<Workout> workouts = workoutRepository.findByUser(user.get());
-                return ResponseEntity.ok(workouts);
-            } else {
+            List<Workout> workouts = workoutRepository.findByUserId(userId);
+            // Sin workouts propios puede que el usuario no exista
+            if (workouts.isEmpty() && !userExistence.exists(userId)) {
                 return ResponseEntity.notFound().build();
             }
+            return ResponseEntity.ok(workouts.stream().map(WorkoutView::from).toList());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
@@ -150,18 +260,30 @@ public class WorkoutController {
     
     // Get all workouts available to a user (global + user-specific)
     @GetMapping("/available/{userId}")
-    public ResponseEntity<List<Workout>> getAvailableWorkouts(@PathVariable Long userId) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutView>> getAvailableWorkouts(@PathVariable Long userId) {
         try {
-            Optional<User> user = userRepository.findById(userId);
-            if (user.isPresent()) {
-                List<Workout> workouts = workoutRepository.findByUserIsNullOrUser(user.get());
-                return ResponseEntity.ok(workouts);
-            } else {
+            // Los globales salen siempre, así que aquí sí hay que saber si existe (normalmente ya en caché)
+            if (!userExistence.exists(userId)) {
                 return ResponseEntity.notFound().build();
             }
+            List<Workout> workouts = workoutRepository.findByUserIsNullOrUserId(userId);
+            return ResponseEntity.ok(workouts.stream().map(WorkoutView::from).toList());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    // Recomendados para el usuario según las sesiones que termina y abandona (precalculados en memoria)
+    @GetMapping("/recommended/{userId}")
+    public ResponseEntity<List<WorkoutView>> getRecommendedWorkouts(
+            @PathVariable Long userId,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (!userExistence.exists(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+        int size = limit != null ? Math.max(1, Math.min(limit, workoutRecommender.topK())) : workoutRecommender.topK();
+        return ResponseEntity.ok(workoutRecommender.recommend(userId, size));
+    }
 }
@@ -1,61 +1,185 @@
 package com.example.vitalyou.controller;
 
+import com.example.vitalyou.dto.WorkoutAnalytics;
+import com.example.vitalyou.dto.WorkoutSessionView;
 import com.example.vitalyou.model.WorkoutSession;
 import com.example.vitalyou.repository.WorkoutSessionRepository;
+import com.example.vitalyou.service.ExportService;
+import com.example.vitalyou.service.Shards;
+import com.example.vitalyou.service.UserExistence;
+import com.example.vitalyou.service.WorkoutAnalyticsService;
+import com.example.vitalyou.service.WorkoutSessionService;
+import com.example.vitalyou.service.WriteBehindQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/workout-sessions")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = Keyset.NEXT_CURSOR_HEADER)
 public class WorkoutSessionController {
 
+    // Orden de las páginas: inicio más reciente primero, luego id más reciente (started_at es NOT NULL desde V6)
+    private static final Comparator<WorkoutSession> NEWEST_FIRST =
+            Comparator.comparing(WorkoutSession::getStartedAt).thenComparing(WorkoutSession::getId).reversed();
+
     @Autowired
     private WorkoutSessionRepository workoutSessionRepository;
 
-    // Obtener todas las sesiones
+    @Autowired
+    private UserExistence userExistence;
+
+    @Autowired
+    private WorkoutSessionService workoutSessionService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private WriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private WorkoutAnalyticsService workoutAnalyticsService;
+
+    @Autowired
+    private Shards shards;
+
+    // Obtener todas las sesiones, por páginas (más recientes primero), reunidas de todos los shards
     @GetMapping
-    public List<WorkoutSession> getAllWorkoutSessions() {
-        return workoutSessionRepository.findAll();
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutSessionView>> getAllWorkoutSessions(
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            int pageSize = Keyset.pageSize(limit);
+            String[] keys = cursor != null ? Keyset.decode(cursor, 2) : null;
+            LocalDateTime afterStart = keys != null ? LocalDateTime.parse(keys[0]) : null;
+            Long afterId = keys != null ? Long.valueOf(keys[1]) : null;
+            List<WorkoutSession> sessions = shards.gather(NEWEST_FIRST, pageSize + 1, () -> keys == null
+                    ? workoutSessionRepository.findFirstPage(Keyset.probe(pageSize))
+                    : workoutSessionRepository.findPageAfter(afterStart, afterId, Keyset.probe(pageSize)));
+            return Keyset.page(sessions, pageSize, WorkoutSessionController::cursorOf, WorkoutSessionView::from);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     // Obtener sesión por ID
     @GetMapping("/{id}")
-    public ResponseEntity<WorkoutSession> getWorkoutSessionById(@PathVariable Long id) {
-        Optional<WorkoutSession> session = workoutSessionRepository.findById(id);
-        return session.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    @Transactional(readOnly = true)
+    public ResponseEntity<WorkoutSessionView> getWorkoutSessionById(@PathVariable Long id) {
+        Optional<WorkoutSession> session = workoutSessionRepository.findWithWorkoutById(id);
+        if (session.isEmpty()) {
+            // Aceptada por la escritura diferida pero aún sin confirmar
+            session = writeBehindQueue.pendingSession(id);
+        }
+        return session.map(WorkoutSessionView::from).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
-    // Obtener sesiones por usuario
+    // Obtener sesiones por usuario, por páginas (más recientes primero)
     @GetMapping("/user/{userId}")
-    public List<WorkoutSession> getWorkoutSessionsByUserId(@PathVariable Long userId) {
-        return workoutSessionRepository.findByUserIdOrderByStartedAtDesc(userId);
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<WorkoutSessionView>> getWorkoutSessionsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            int pageSize = Keyset.pageSize(limit);
+            List<WorkoutSession> sessions;
+            LocalDateTime afterStart = null;
+            Long afterId = null;
+            if (cursor == null) {
+                sessions = workoutSessionRepository.findFirstPageByUserId(userId, Keyset.probe(pageSize));
+            } else {
+                String[] keys = Keyset.decode(cursor, 2);
+                afterStart = LocalDateTime.parse(keys[0]);
+                afterId = Long.valueOf(keys[1]);
+                sessions = workoutSessionRepository.findPageByUserIdAfter(userId, afterStart, afterId, Keyset.probe(pageSize));
+            }
+            // Sesiones aceptadas por la escritura diferida que aún no están en la base de datos
+            List<WorkoutSession> pending = new ArrayList<>();
+            for (WorkoutSession session : writeBehindQueue.pendingSessions(userId)) {
+                if (afterStart == null || session.getStartedAt().isBefore(afterStart)
+                        || (session.getStartedAt().equals(afterStart) && session.getId() < afterId)) {
+                    pending.add(session);
+                }
+            }
+            sessions = Keyset.merge(sessions, pending, NEWEST_FIRST, WorkoutSession::getId, pageSize + 1);
+            return Keyset.page(sessions, pageSize, WorkoutSessionController::cursorOf, WorkoutSessionView::from);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Rachas, totales semanales y mapa de actividad del año, en una respuesta pequeña
+    @GetMapping("/user/{userId}/analytics")
+    @Transactional(readOnly = true)
+    public ResponseEntity<WorkoutAnalytics> getWorkoutAnalytics(
+            @PathVariable Long userId,
+            @RequestParam(value = "weeks", defaultValue = "" + WorkoutAnalyticsService.DEFAULT_WEEKS) int weeks,
+            @RequestParam(value = "year", required = false) Integer year) {
+        if (!userExistence.exists(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+        LocalDate today = LocalDate.now();
+        int weekCount = Math.max(1, Math.min(weeks, WorkoutAnalyticsService.MAX_WEEKS));
+        return ResponseEntity.ok(workoutAnalyticsService.analytics(userId, weekCount,
+                year != null ? year : today.getYear(), today));
+    }
+
+    // Exportar todo el historial de sesiones de un usuario como JSON delimitado por líneas
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportWorkoutSessions(
+            @PathVariable Long userId,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        if (!userExistence.exists(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return NdjsonExport.stream("workout-sessions-" + userId + ".ndjson", acceptEncoding,
+                out -> shards.forUser(userId, () -> exportService.writeWorkoutSessions(userId, out)));
     }
 
     // Crear nueva sesión
     @PostMapping
-    public WorkoutSession createWorkoutSession(@RequestBody WorkoutSession session) {
-        return workoutSessionRepository.save(session);
+    public ResponseEntity<WorkoutSessionView> createWorkoutSession(@RequestBody WorkoutSession session) {
+        // La sesión va al shard de su usuario (shard 0 si no tiene)
+        return shards.forUser(session.getUser() != null ? session.getUser().getId() : null, () -> saveSession(session));
+    }
+
+    private ResponseEntity<WorkoutSessionView> saveSession(WorkoutSession session) {
+        // Escritura diferida: se valida y recibe su id ahora, se guarda en el siguiente commit agrupado
+        if (writeBehindQueue.isEnabled()) {
+            Optional<WorkoutSession> prepared = workoutSessionService.prepareSession(session);
+            if (prepared.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (!writeBehindQueue.submit(prepared.get())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            return ResponseEntity.accepted().body(WorkoutSessionView.from(prepared.get()));
+        }
+        return ResponseEntity.ok(WorkoutSessionView.from(workoutSessionRepository.save(session)));
     }
 
     // Actualizar sesión
     @PutMapping("/{id}")
-    public ResponseEntity<WorkoutSession> updateWorkoutSession(@PathVariable Long id, @RequestBody WorkoutSession sessionDetails) {
-        Optional<WorkoutSession> optionalSession = workoutSessionRepository.findById(id);
-        if (optionalSession.isPresent()) {
-            WorkoutSession session = optionalSession.get();
-            session.setStartedAt(sessionDetails.getStartedAt());
-            session.setFinishedAt(sessionDetails.getFinishedAt());
-            session.setDurationMinutes(sessionDetails.getDurationMinutes());
-            session.setCaloriesBurned(sessionDetails.getCaloriesBurned());
-            session.setNotes(sessionDetails.getNotes());
-            return ResponseEntity.ok(workoutSessionRepository.save(session));
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<WorkoutSessionView> updateWorkoutSession(@PathVariable Long id, @RequestBody WorkoutSession sessionDetails) {
+        Optional<WorkoutSession> session = workoutSessionService.updateSession(id, sessionDetails);
+        return session.map(WorkoutSessionView::from).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
     // Eliminar sesión
@@ -63,6 +187,7 @@ public class WorkoutSessionController {
     public ResponseEntity<Void> deleteWorkoutSession(@PathVariable Long id) {
         if (workoutSessionRepository.existsById(id)) {
             workoutSessionRepository.deleteById(id);
+            writeBehindQueue.forgetSession(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -70,13 +195,12 @@ public class WorkoutSessionController {
 
     // Marcar sesión como completada
     @PutMapping("/{id}/complete")
-    public ResponseEntity<WorkoutSession> completeWorkoutSession(@PathVariable Long id) {
-        Optional<WorkoutSession> optionalSession = workoutSessionRepository.findById(id);
-        if (optionalSession.isPresent()) {
-            WorkoutSession session = optionalSession.get();
-            session.setFinishedAt(java.time.LocalDateTime.now());
-            return ResponseEntity.ok(workoutSessionRepository.save(session));
-        }
-        return ResponseEntity.notFound().build();
+    public ResponseEntity<WorkoutSessionView> completeWorkoutSession(@PathVariable Long id) {
+        Optional<WorkoutSession> session = workoutSessionService.completeSession(id);
+        return session.map(WorkoutSessionView::from).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    private static String cursorOf(WorkoutSession session) {
+        return Keyset.encode(session.getStartedAt(), session.getId());
     }
 }
@@ -0,0 +1,12 @@
+package com.example.vitalyou.dto;
+
+import com.example.vitalyou.model.Exercise;
+
+public record ExerciseView(Long id, String name, String description, Integer sets, Integer reps,
+                           Integer durationSeconds, Double weight) {
+
+    public static ExerciseView from(Exercise exercise) {
+        return new ExerciseView(exercise.getId(), exercise.getName(), exercise.getDescription(), exercise.getSets(),
+                exercise.getReps(), exercise.getDurationSeconds(), exercise.getWeight());
+    }
+}
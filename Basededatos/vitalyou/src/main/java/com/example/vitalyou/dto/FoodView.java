@@ -0,0 +1,11 @@
+package com.example.vitalyou.dto;
+
+import com.example.vitalyou.model.Food;
+
+public record FoodView(Long id, String name, Double calories, Double protein, Double carbs, Double fat, String servingSize) {
+
+    public static FoodView from(Food food) {
+        return new FoodView(food.getId(), food.getName(), food.getCalories(), food.getProtein(),
+                food.getCarbs(), food.getFat(), food.getServingSize());
+    }
+}
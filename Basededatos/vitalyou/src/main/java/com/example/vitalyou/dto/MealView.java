@@ -0,0 +1,17 @@
+package com.example.vitalyou.dto;
+
+import com.example.vitalyou.model.Meal;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Meal as returned by the API: the owner by id only, the food inline
+public record MealView(Long id, Long userId, Long foodId, FoodView food, Double quantity, Meal.MealType mealType,
+                       LocalDate date, Double totalCalories, LocalDateTime createdAt) {
+
+    // The food must be fetched (entity graph or join fetch); the user is read by id without loading it
+    public static MealView from(Meal meal) {
+        return new MealView(meal.getId(), meal.getUser().getId(), meal.getFood().getId(), FoodView.from(meal.getFood()),
+                meal.getQuantity(), meal.getMealType(), meal.getDate(), meal.getTotalCalories(), meal.getCreatedAt());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.vitalyou.dto;
+
+import java.time.LocalDate;
+
+// Nutrition totals of one user for one day
+public record NutritionDay(LocalDate date, double calories, double protein, double carbs, double fat, int mealsCount) {
+
+    public static NutritionDay empty(LocalDate date) {
+        return new NutritionDay(date, 0, 0, 0, 0, 0);
+    }
+}
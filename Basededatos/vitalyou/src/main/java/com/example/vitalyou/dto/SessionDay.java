@@ -0,0 +1,6 @@
+package com.example.vitalyou.dto;
+
+import java.time.LocalDate;
+
+// Workout sessions of one user on one day, aggregated in SQL
+public record SessionDay(LocalDate date, long sessions, long minutes, long calories) {}
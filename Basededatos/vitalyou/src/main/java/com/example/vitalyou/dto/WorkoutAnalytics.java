@@ -0,0 +1,17 @@
+package com.example.vitalyou.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Progress screen summary of a user's workout sessions; its size does not grow with the history.
+// A day counts as active when at least one session started on it.
+public record WorkoutAnalytics(Long userId, int currentStreak, int longestStreak, long totalSessions,
+                               long totalMinutes, long totalCalories, List<Week> weeks, Heatmap heatmap) {
+
+    // Monday-based week, oldest first, zero-filled
+    public record Week(LocalDate weekStart, long sessions, long minutes, long calories) {}
+
+    // One bit per day of the year: bit i (day of year i + 1) is (byte[i / 8] >> (i % 8)) & 1
+    // of the Base64-decoded bitset, which always has (days + 7) / 8 bytes
+    public record Heatmap(int year, int days, int activeDays, String bitset) {}
+}
@@ -0,0 +1,18 @@
+package com.example.vitalyou.dto;
+
+import com.example.vitalyou.model.WorkoutSession;
+
+import java.time.LocalDateTime;
+
+public record WorkoutSessionView(Long id, Long userId, WorkoutSummary workout, LocalDateTime startedAt,
+                                 LocalDateTime finishedAt, Integer durationMinutes, Integer caloriesBurned, String notes) {
+
+    // The workout must be fetched (entity graph); the user is read by id without loading it
+    public static WorkoutSessionView from(WorkoutSession session) {
+        return new WorkoutSessionView(session.getId(),
+                session.getUser() != null ? session.getUser().getId() : null,
+                WorkoutSummary.from(session.getWorkout()),
+                session.getStartedAt(), session.getFinishedAt(), session.getDurationMinutes(),
+                session.getCaloriesBurned(), session.getNotes());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.vitalyou.dto;
+
+import com.example.vitalyou.model.Workout;
+
+// Short form of a workout embedded in session responses
+public record WorkoutSummary(Long id, String name, Integer duration, Workout.Difficulty difficulty, Workout.Category category) {
+
+    public static WorkoutSummary from(Workout workout) {
+        if (workout == null) {
+            return null;
+        }
+        return new WorkoutSummary(workout.getId(), workout.getName(), workout.getDuration(),
+                workout.getDifficulty(), workout.getCategory());
+    }
+}
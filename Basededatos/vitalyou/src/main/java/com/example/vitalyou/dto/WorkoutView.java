@@ -0,0 +1,26 @@
+package com.example.vitalyou.dto;
+
+import com.example.vitalyou.model.Workout;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Workout as returned by the API; exercises are only present on the detail endpoint
+public record WorkoutView(Long id, String name, String description, Integer duration, Workout.Difficulty difficulty,
+                          Workout.Category category, LocalDateTime createdAt,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) List<ExerciseView> exercises) {
+
+    public static WorkoutView from(Workout workout) {
+        return new WorkoutView(workout.getId(), workout.getName(), workout.getDescription(), workout.getDuration(),
+                workout.getDifficulty(), workout.getCategory(), workout.getCreatedAt(), null);
+    }
+
+    // The exercises must be fetched (entity graph)
+    public static WorkoutView withExercises(Workout workout) {
+        List<ExerciseView> exercises = workout.getExercises() == null ? List.of()
+                : workout.getExercises().stream().map(ExerciseView::from).toList();
+        return new WorkoutView(workout.getId(), workout.getName(), workout.getDescription(), workout.getDuration(),
+                workout.getDifficulty(), workout.getCategory(), workout.getCreatedAt(), exercises);
+    }
+}
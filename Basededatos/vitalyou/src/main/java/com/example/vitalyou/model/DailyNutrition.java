@@ -0,0 +1,89 @@
+package com.example.vitalyou.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// Pre-aggregated nutrition totals per user and day, maintained on every meal write
+@Entity
+@Table(name = "daily_nutrition")
+@IdClass(DailyNutritionId.class)
+public class DailyNutrition {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Id
+    @Column(name = "nutrition_date")
+    private LocalDate date;
+    
+    @Column(name = "total_calories", nullable = false)
+    private Double totalCalories = 0.0;
+    
+    @Column(name = "total_protein", nullable = false)
+    private Double totalProtein = 0.0;
+    
+    @Column(name = "total_carbs", nullable = false)
+    private Double totalCarbs = 0.0;
+    
+    @Column(name = "total_fat", nullable = false)
+    private Double totalFat = 0.0;
+    
+    @Column(name = "meals_count", nullable = false)
+    private Integer mealsCount = 0;
+    
+    // Calories per meal type
+    @Column(name = "breakfast_calories", nullable = false)
+    private Double breakfastCalories = 0.0;
+    
+    @Column(name = "lunch_calories", nullable = false)
+    private Double lunchCalories = 0.0;
+    
+    @Column(name = "dinner_calories", nullable = false)
+    private Double dinnerCalories = 0.0;
+    
+    @Column(name = "snack_calories", nullable = false)
+    private Double snackCalories = 0.0;
+    
+    // Constructors
+    public DailyNutrition() {}
+    
+    public DailyNutrition(Long userId, LocalDate date) {
+        this.userId = userId;
+        this.date = date;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    
+    public Double getTotalCalories() { return totalCalories; }
+    public void setTotalCalories(Double totalCalories) { this.totalCalories = totalCalories; }
+    
+    public Double getTotalProtein() { return totalProtein; }
+    public void setTotalProtein(Double totalProtein) { this.totalProtein = totalProtein; }
+    
+    public Double getTotalCarbs() { return totalCarbs; }
+    public void setTotalCarbs(Double totalCarbs) { this.totalCarbs = totalCarbs; }
+    
+    public Double getTotalFat() { return totalFat; }
+    public void setTotalFat(Double totalFat) { this.totalFat = totalFat; }
+    
+    public Integer getMealsCount() { return mealsCount; }
+    public void setMealsCount(Integer mealsCount) { this.mealsCount = mealsCount; }
+    
+    public Double getBreakfastCalories() { return breakfastCalories; }
+    public void setBreakfastCalories(Double breakfastCalories) { this.breakfastCalories = breakfastCalories; }
+    
+    public Double getLunchCalories() { return lunchCalories; }
+    public void setLunchCalories(Double lunchCalories) { this.lunchCalories = lunchCalories; }
+    
+    public Double getDinnerCalories() { return dinnerCalories; }
+    public void setDinnerCalories(Double dinnerCalories) { this.dinnerCalories = dinnerCalories; }
+    
+    public Double getSnackCalories() { return snackCalories; }
+    public void setSnackCalories(Double snackCalories) { this.snackCalories = snackCalories; }
+}
@@ -0,0 +1,40 @@
+package com.example.vitalyou.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Composite key of DailyNutrition: one row per user and day
+public class DailyNutritionId implements Serializable {
+    
+    private Long userId;
+    private LocalDate date;
+    
+    // Constructors
+    public DailyNutritionId() {}
+    
+    public DailyNutritionId(Long userId, LocalDate date) {
+        this.userId = userId;
+        this.date = date;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DailyNutritionId)) return false;
+        DailyNutritionId that = (DailyNutritionId) o;
+        return Objects.equals(userId, that.userId) && Objects.equals(date, that.date);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, date);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.vitalyou.model;
+
+import com.example.vitalyou.service.EntityCounters;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Keeps EntityCounters in step with inserts and deletes done through JPA.
+// Created by Spring (Hibernate's bean container) while the entity manager factory is
+// still being built, so the counters are looked up lazily.
+public class EntityCountListener {
+
+    @Autowired
+    private ObjectProvider<EntityCounters> entityCounters;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        entityCounters.getObject().adjust(Hibernate.getClass(entity), 1);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        entityCounters.getObject().adjust(Hibernate.getClass(entity), -1);
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.vitalyou.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@EntityListeners({EntityCountListener.class, ReferenceReplicationListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exercises")
 @Table(name = "exercises")
 public class Exercise {
     
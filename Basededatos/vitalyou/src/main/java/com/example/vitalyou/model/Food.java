@@ -1,9 +1,14 @@
 package com.example.vitalyou.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners({EntityCountListener.class, ReferenceReplicationListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "foods")
 @Table(name = "foods")
 public class Food {
     
@@ -22,6 +27,9 @@ public class Food {
     @Column(name = "serving_size")
     private String servingSize; // e.g., "100g", "1 cup"
     
+    @Column(name = "source_code", length = 64)
+    private String sourceCode; // id in the imported nutrient database, if any
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -60,6 +68,9 @@ public class Food {
     public String getServingSize() { return servingSize; }
     public void setServingSize(String servingSize) { this.servingSize = servingSize; }
     
+    public String getSourceCode() { return sourceCode; }
+    public void setSourceCode(String sourceCode) { this.sourceCode = sourceCode; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
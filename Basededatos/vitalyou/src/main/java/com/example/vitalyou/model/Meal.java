@@ -5,18 +5,28 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(EntityCountListener.class)
 @Table(name = "meals")
 public class Meal {
     
+    // Pooled table generator instead of IDENTITY so Hibernate can batch meal inserts
+    public static final String ID_GENERATOR_TABLE = "id_generators";
+    public static final String ID_GENERATOR_NAME = "meals";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "meal_id")
+    @TableGenerator(name = "meal_id", table = ID_GENERATOR_TABLE,
+                    pkColumnName = "generator_name", valueColumnName = "next_val",
+                    pkColumnValue = ID_GENERATOR_NAME, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Fetched per query through entity graphs when the food is needed
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "food_id", nullable = false)
     private Food food;
     
@@ -0,0 +1,23 @@
+package com.example.vitalyou.model;
+
+import com.example.vitalyou.service.ReferenceReplicator;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Reports writes to reference entities (copied to every shard) to the ReferenceReplicator.
+// Looked up lazily for the same reason as in EntityCountListener.
+public class ReferenceReplicationListener {
+
+    @Autowired
+    private ObjectProvider<ReferenceReplicator> referenceReplicator;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        referenceReplicator.getObject().changed(entity);
+    }
+}
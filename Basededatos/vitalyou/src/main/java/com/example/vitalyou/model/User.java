@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners({EntityCountListener.class, ReferenceReplicationListener.class})
 @Table(name = "users")
 public class User {
     
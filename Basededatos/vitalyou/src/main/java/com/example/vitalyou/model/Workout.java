@@ -2,10 +2,15 @@ package com.example.vitalyou.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners({EntityCountListener.class, ReferenceReplicationListener.class})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workouts")
 @Table(name = "workouts")
 public class Workout {
     
@@ -37,6 +42,7 @@ public class Workout {
     private User user;
     
     @OneToMany(mappedBy = "workout", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workout-exercises")
     @JsonIgnore
     private List<Exercise> exercises;
     
@@ -5,11 +5,18 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(EntityCountListener.class)
 @Table(name = "workout_sessions")
 public class WorkoutSession {
     
+    // Same pooled table generator as meals: batched inserts, and ids the write-behind queue can hand out early
+    public static final String ID_GENERATOR_NAME = "workout_sessions";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "workout_session_id")
+    @TableGenerator(name = "workout_session_id", table = Meal.ID_GENERATOR_TABLE,
+                    pkColumnName = "generator_name", valueColumnName = "next_val",
+                    pkColumnValue = ID_GENERATOR_NAME, allocationSize = Meal.ID_ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -21,7 +28,7 @@ public class WorkoutSession {
     @JoinColumn(name = "workout_id")
     private Workout workout;
     
-    @Column(name = "started_at")
+    @Column(name = "started_at", nullable = false)
     private LocalDateTime startedAt;
     
     @Column(name = "finished_at")
@@ -0,0 +1,123 @@
+package com.example.vitalyou.repository;
+
+import com.example.vitalyou.dto.NutritionDay;
+import com.example.vitalyou.model.DailyNutrition;
+import com.example.vitalyou.model.DailyNutritionId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyNutritionRepository extends JpaRepository<DailyNutrition, DailyNutritionId> {
+    
+    // Adds to the (user, date) row, creating it on the first meal of the day. One statement, so two
+    // concurrent first meals cannot both try to insert the row. The query space keeps Hibernate from
+    // evicting every second-level cache region after this native statement.
+    // The update reuses the parameters rather than VALUES(col), deprecated since MySQL 8.0.20; the
+    // row-alias form (INSERT ... AS new) that replaces it is not accepted by H2, which the tests run on.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_nutrition"))
+    @Query(value = "INSERT INTO daily_nutrition (user_id, nutrition_date, total_calories, total_protein, total_carbs, total_fat, " +
+                   "meals_count, breakfast_calories, lunch_calories, dinner_calories, snack_calories) " +
+                   "VALUES (:userId, :date, :calories, :protein, :carbs, :fat, :meals, :breakfast, :lunch, :dinner, :snack) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "total_calories = total_calories + :calories, " +
+                   "total_protein = total_protein + :protein, " +
+                   "total_carbs = total_carbs + :carbs, " +
+                   "total_fat = total_fat + :fat, " +
+                   "meals_count = meals_count + :meals, " +
+                   "breakfast_calories = breakfast_calories + :breakfast, " +
+                   "lunch_calories = lunch_calories + :lunch, " +
+                   "dinner_calories = dinner_calories + :dinner, " +
+                   "snack_calories = snack_calories + :snack",
+           nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("date") LocalDate date,
+               @Param("calories") double calories, @Param("protein") double protein,
+               @Param("carbs") double carbs, @Param("fat") double fat, @Param("meals") int meals,
+               @Param("breakfast") double breakfast, @Param("lunch") double lunch,
+               @Param("dinner") double dinner, @Param("snack") double snack);
+    
+    // Atomic in-place increment of an existing row (subtract passes negative amounts); returns 0 if
+    // the row does not exist
+    @Modifying
+    @Query("UPDATE DailyNutrition d SET " +
+           "d.totalCalories = d.totalCalories + :calories, " +
+           "d.totalProtein = d.totalProtein + :protein, " +
+           "d.totalCarbs = d.totalCarbs + :carbs, " +
+           "d.totalFat = d.totalFat + :fat, " +
+           "d.mealsCount = d.mealsCount + :meals, " +
+           "d.breakfastCalories = d.breakfastCalories + :breakfast, " +
+           "d.lunchCalories = d.lunchCalories + :lunch, " +
+           "d.dinnerCalories = d.dinnerCalories + :dinner, " +
+           "d.snackCalories = d.snackCalories + :snack " +
+           "WHERE d.userId = :userId AND d.date = :date")
+    int increment(@Param("userId") Long userId, @Param("date") LocalDate date,
+                  @Param("calories") double calories, @Param("protein") double protein,
+                  @Param("carbs") double carbs, @Param("fat") double fat, @Param("meals") int meals,
+                  @Param("breakfast") double breakfast, @Param("lunch") double lunch,
+                  @Param("dinner") double dinner, @Param("snack") double snack);
+    
+    // Days with meals in [startDate, endDate], a primary-key range scan
+    @Query("SELECT new com.example.vitalyou.dto.NutritionDay(d.date, d.totalCalories, d.totalProtein, d.totalCarbs, d.totalFat, d.mealsCount) " +
+           "FROM DailyNutrition d WHERE d.userId = :userId AND d.date BETWEEN :startDate AND :endDate ORDER BY d.date")
+    List<NutritionDay> findDays(@Param("userId") Long userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Rows whose last meal was moved or deleted
+    @Modifying
+    @Query("DELETE FROM DailyNutrition d WHERE d.userId = :userId AND d.date = :date AND d.mealsCount <= 0")
+    int deleteIfEmpty(@Param("userId") Long userId, @Param("date") LocalDate date);
+    
+    // Backfill: drop and recompute every rollup row from the meals table
+    @Modifying
+    @Query(value = "DELETE FROM daily_nutrition", nativeQuery = true)
+    int deleteAllRows();
+    
+    @Modifying
+    @Query(value = "INSERT INTO daily_nutrition (user_id, nutrition_date, total_calories, total_protein, total_carbs, total_fat, " +
+                   "meals_count, breakfast_calories, lunch_calories, dinner_calories, snack_calories) " +
+                   "SELECT m.user_id, m.meal_date, " +
+                   "COALESCE(SUM(m.total_calories), 0), " +
+                   "COALESCE(SUM(f.protein * m.quantity), 0), " +
+                   "COALESCE(SUM(f.carbs * m.quantity), 0), " +
+                   "COALESCE(SUM(f.fat * m.quantity), 0), " +
+                   "COUNT(*), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'BREAKFAST' THEN m.total_calories END), 0), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'LUNCH' THEN m.total_calories END), 0), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'DINNER' THEN m.total_calories END), 0), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'SNACK' THEN m.total_calories END), 0) " +
+                   "FROM meals m JOIN foods f ON f.id = m.food_id " +
+                   "GROUP BY m.user_id, m.meal_date",
+           nativeQuery = true)
+    int insertAllFromMeals();
+    
+    // The same for one user, after their meals moved to another shard
+    @Modifying
+    @Query(value = "DELETE FROM daily_nutrition WHERE user_id = :userId", nativeQuery = true)
+    int deleteRowsOfUser(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query(value = "INSERT INTO daily_nutrition (user_id, nutrition_date, total_calories, total_protein, total_carbs, total_fat, " +
+                   "meals_count, breakfast_calories, lunch_calories, dinner_calories, snack_calories) " +
+                   "SELECT m.user_id, m.meal_date, " +
+                   "COALESCE(SUM(m.total_calories), 0), " +
+                   "COALESCE(SUM(f.protein * m.quantity), 0), " +
+                   "COALESCE(SUM(f.carbs * m.quantity), 0), " +
+                   "COALESCE(SUM(f.fat * m.quantity), 0), " +
+                   "COUNT(*), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'BREAKFAST' THEN m.total_calories END), 0), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'LUNCH' THEN m.total_calories END), 0), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'DINNER' THEN m.total_calories END), 0), " +
+                   "COALESCE(SUM(CASE WHEN m.meal_type = 'SNACK' THEN m.total_calories END), 0) " +
+                   "FROM meals m JOIN foods f ON f.id = m.food_id " +
+                   "WHERE m.user_id = :userId GROUP BY m.user_id, m.meal_date",
+           nativeQuery = true)
+    int insertFromMealsOfUser(@Param("userId") Long userId);
+}
@@ -1,8 +1,13 @@
 package com.example.vitalyou.repository;
 
 import com.example.vitalyou.model.Food;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,5 +19,10 @@ public interface FoodRepository extends JpaRepository<Food, Long> {
     @Query("SELECT f FROM Food f WHERE LOWER(f.name) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Food> findByNameContainingIgnoreCase(@Param("query") String query);
     
+    // Served from the query cache until a food is written
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Food> findByOrderByNameAsc();
+    
+    // Paged scan used to build the in-memory search index
+    Slice<Food> findAllBy(Pageable pageable);
 }
@@ -2,26 +2,67 @@ package com.example.vitalyou.repository;
 
 import com.example.vitalyou.model.Meal;
 import com.example.vitalyou.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MealRepository extends JpaRepository<Meal, Long> {
     
+    // Queries that feed MealView load the food in the same SELECT
+    @EntityGraph(attributePaths = "food")
+    Optional<Meal> findWithFoodById(Long id);
+    
+    @EntityGraph(attributePaths = "food")
     List<Meal> findByUserOrderByCreatedAtDesc(User user);
     
-    List<Meal> findByUserAndDateOrderByCreatedAtDesc(User user, LocalDate date);
+    // By user id: no users row needed to filter on its foreign key
+    @EntityGraph(attributePaths = "food")
+    List<Meal> findByUserIdAndDateOrderByCreatedAtDesc(Long userId, LocalDate date);
     
+    @EntityGraph(attributePaths = "food")
     List<Meal> findByUserAndMealTypeOrderByCreatedAtDesc(User user, Meal.MealType mealType);
     
+    @EntityGraph(attributePaths = "food")
     @Query("SELECT m FROM Meal m WHERE m.user = :user AND m.date BETWEEN :startDate AND :endDate ORDER BY m.date DESC, m.createdAt DESC")
     List<Meal> findByUserAndDateBetween(@Param("user") User user, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    // Keyset pages ordered by (date DESC, id DESC)
+    @EntityGraph(attributePaths = "food")
+    @Query("SELECT m FROM Meal m ORDER BY m.date DESC, m.id DESC")
+    List<Meal> findFirstPage(Limit limit);
+    
+    @EntityGraph(attributePaths = "food")
+    @Query("SELECT m FROM Meal m WHERE m.date < :date OR (m.date = :date AND m.id < :id) ORDER BY m.date DESC, m.id DESC")
+    List<Meal> findPageAfter(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+    
+    @EntityGraph(attributePaths = "food")
+    @Query("SELECT m FROM Meal m WHERE m.user.id = :userId ORDER BY m.date DESC, m.id DESC")
+    List<Meal> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+    
+    @EntityGraph(attributePaths = "food")
+    @Query("SELECT m FROM Meal m WHERE m.user.id = :userId AND (m.date < :date OR (m.date = :date AND m.id < :id)) ORDER BY m.date DESC, m.id DESC")
+    List<Meal> findPageByUserIdAfter(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+    
+    // Full history for export, read through a JDBC cursor; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Meal m JOIN FETCH m.food WHERE m.user.id = :userId ORDER BY m.date, m.id")
+    Stream<Meal> streamByUserId(@Param("userId") Long userId);
+    
     @Query("SELECT SUM(m.totalCalories) FROM Meal m WHERE m.user = :user AND m.date = :date")
     Double getTotalCaloriesByUserAndDate(@Param("user") User user, @Param("date") LocalDate date);
 }
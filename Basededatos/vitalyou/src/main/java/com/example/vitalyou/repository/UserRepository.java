@@ -1,13 +1,26 @@
 package com.example.vitalyou.repository;
 
 import com.example.vitalyou.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    
+    // Keyset pages ordered by id
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Bulk delete: no cascade and no entity listeners, so it is not replicated to the other shards
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteRow(@Param("id") Long id);
 }
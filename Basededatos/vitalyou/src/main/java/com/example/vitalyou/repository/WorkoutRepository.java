@@ -2,27 +2,39 @@ package com.example.vitalyou.repository;
 
 import com.example.vitalyou.model.Workout;
 import com.example.vitalyou.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
+// Combined filters (GET /api/workouts/query) go through JpaSpecificationExecutor with WorkoutSpecifications
 @Repository
-public interface WorkoutRepository extends JpaRepository<Workout, Long> {
+public interface WorkoutRepository extends JpaRepository<Workout, Long>, JpaSpecificationExecutor<Workout> {
+    // Detail view: workout plus its exercises in one SELECT
+    @EntityGraph(attributePaths = "exercises")
+    Optional<Workout> findWithExercisesById(Long id);
+    
     List<Workout> findByCategory(Workout.Category category);
     List<Workout> findByDifficulty(Workout.Difficulty difficulty);
     List<Workout> findByNameContainingIgnoreCase(String name);
     
-    // Global workouts (no user assigned)
+    // Global workouts (no user assigned); served from the query cache until a workout is written
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Workout> findByUserIsNull();
     List<Workout> findByUserIsNullAndCategory(Workout.Category category);
     List<Workout> findByUserIsNullAndDifficulty(Workout.Difficulty difficulty);
     
-    // User-specific workouts
-    List<Workout> findByUser(User user);
+    // User-specific workouts, by user id (compared on the foreign key, no users row needed)
+    List<Workout> findByUserId(Long userId);
     List<Workout> findByUserAndCategory(User user, Workout.Category category);
     List<Workout> findByUserAndDifficulty(User user, Workout.Difficulty difficulty);
     
     // Combined: global + user workouts
-    List<Workout> findByUserIsNullOrUser(User user);
+    List<Workout> findByUserIsNullOrUserId(Long userId);
 }
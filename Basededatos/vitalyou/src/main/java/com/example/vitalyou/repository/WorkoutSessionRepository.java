@@ -1,13 +1,63 @@
 package com.example.vitalyou.repository;
 
+import com.example.vitalyou.dto.SessionDay;
 import com.example.vitalyou.model.WorkoutSession;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface WorkoutSessionRepository extends JpaRepository<WorkoutSession, Long> {
+    // Queries that feed WorkoutSessionView load the workout in the same SELECT
+    @EntityGraph(attributePaths = "workout")
+    Optional<WorkoutSession> findWithWorkoutById(Long id);
+    
+    @EntityGraph(attributePaths = "workout")
     List<WorkoutSession> findByUserIdOrderByStartedAtDesc(Long userId);
+    
+    @EntityGraph(attributePaths = "workout")
     List<WorkoutSession> findByWorkoutId(Long workoutId);
+    
+    // Keyset pages ordered by (startedAt DESC, id DESC)
+    @EntityGraph(attributePaths = "workout")
+    @Query("SELECT s FROM WorkoutSession s ORDER BY s.startedAt DESC, s.id DESC")
+    List<WorkoutSession> findFirstPage(Limit limit);
+    
+    @EntityGraph(attributePaths = "workout")
+    @Query("SELECT s FROM WorkoutSession s WHERE s.startedAt < :startedAt OR (s.startedAt = :startedAt AND s.id < :id) ORDER BY s.startedAt DESC, s.id DESC")
+    List<WorkoutSession> findPageAfter(@Param("startedAt") LocalDateTime startedAt, @Param("id") Long id, Limit limit);
+    
+    @EntityGraph(attributePaths = "workout")
+    @Query("SELECT s FROM WorkoutSession s WHERE s.user.id = :userId ORDER BY s.startedAt DESC, s.id DESC")
+    List<WorkoutSession> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+    
+    @EntityGraph(attributePaths = "workout")
+    @Query("SELECT s FROM WorkoutSession s WHERE s.user.id = :userId AND (s.startedAt < :startedAt OR (s.startedAt = :startedAt AND s.id < :id)) ORDER BY s.startedAt DESC, s.id DESC")
+    List<WorkoutSession> findPageByUserIdAfter(@Param("userId") Long userId, @Param("startedAt") LocalDateTime startedAt, @Param("id") Long id, Limit limit);
+    
+    // One row per day with sessions, oldest first (analytics)
+    @Query("SELECT new com.example.vitalyou.dto.SessionDay(CAST(s.startedAt AS LocalDate), COUNT(s), " +
+           "COALESCE(SUM(s.durationMinutes), 0), COALESCE(SUM(s.caloriesBurned), 0)) " +
+           "FROM WorkoutSession s WHERE s.user.id = :userId AND s.startedAt IS NOT NULL " +
+           "GROUP BY CAST(s.startedAt AS LocalDate) ORDER BY CAST(s.startedAt AS LocalDate)")
+    List<SessionDay> findSessionDays(@Param("userId") Long userId);
+    
+    // Full history for export, read through a JDBC cursor; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM WorkoutSession s LEFT JOIN FETCH s.workout WHERE s.user.id = :userId ORDER BY s.startedAt, s.id")
+    Stream<WorkoutSession> streamByUserId(@Param("userId") Long userId);
 }
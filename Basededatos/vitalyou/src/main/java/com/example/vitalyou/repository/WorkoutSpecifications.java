@@ -0,0 +1,67 @@
+package com.example.vitalyou.repository;
+
+import com.example.vitalyou.model.Workout;
+import org.springframework.data.jpa.domain.Specification;
+
+// Filters of GET /api/workouts/query, combined into one WHERE clause with Specification.allOf.
+// Owner filters compare user_id (user.id is the foreign key, no join); the name prefix is a
+// LIKE 'prefix%' that can range-scan the name indexes of V5 (case-insensitive with MySQL's
+// default collation).
+public final class WorkoutSpecifications {
+
+    private WorkoutSpecifications() {}
+
+    public static Specification<Workout> global() {
+        return (root, query, cb) -> cb.isNull(root.get("user"));
+    }
+
+    public static Specification<Workout> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    // Global workouts plus the user's own
+    public static Specification<Workout> availableTo(Long userId) {
+        return global().or(ownedBy(userId));
+    }
+
+    public static Specification<Workout> category(Workout.Category category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    public static Specification<Workout> difficulty(Workout.Difficulty difficulty) {
+        return (root, query, cb) -> cb.equal(root.get("difficulty"), difficulty);
+    }
+
+    public static Specification<Workout> durationAtLeast(int minutes) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("duration"), minutes);
+    }
+
+    public static Specification<Workout> durationAtMost(int minutes) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("duration"), minutes);
+    }
+
+    public static Specification<Workout> nameStartsWith(String prefix) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("name"), pattern, '\\');
+    }
+
+    // Keyset: rows after (name, id) in ORDER BY name, id
+    public static Specification<Workout> afterName(String name, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("name"), name),
+                cb.and(cb.equal(root.get("name"), name), cb.greaterThan(root.get("id"), id)));
+    }
+
+    // Keyset: rows after (duration, id) in ORDER BY duration, id, where a null duration sorts first
+    // (MySQL and H2 order NULLs low)
+    public static Specification<Workout> afterDuration(Integer duration, Long id) {
+        if (duration == null) {
+            return (root, query, cb) -> cb.or(
+                    cb.isNotNull(root.get("duration")),
+                    cb.greaterThan(root.get("id"), id));
+        }
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("duration"), duration),
+                cb.and(cb.equal(root.get("duration"), duration), cb.greaterThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Workout;
+import com.example.vitalyou.model.WorkoutSession;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Server-side estimate of the calories burned in a session:
+//   kcal = MET(category, difficulty) x weight (kg) x minutes / 60
+// MET values follow the Compendium of Physical Activities for comparable activities.
+// The same formula exists as SQL (caloriesSql) for set-based recomputation; both round half up.
+@Component
+public class CalorieEstimator {
+
+    // Used when the user has not entered a weight
+    public static final double REFERENCE_WEIGHT_KG = 70.0;
+
+    // Session without a workout, or a workout without a category
+    static final double DEFAULT_MET = 4.0;
+
+    private static final BigDecimal SIXTY = BigDecimal.valueOf(60);
+
+    private static final Map<Workout.Category, Map<Workout.Difficulty, Double>> MET = new EnumMap<>(Workout.Category.class);
+
+    static {
+        met(Workout.Category.FUERZA, 3.5, 5.0, 6.0);
+        met(Workout.Category.CARDIO, 5.0, 7.0, 9.8);
+        met(Workout.Category.FLEXIBILIDAD, 2.3, 2.5, 3.0);
+        met(Workout.Category.HIIT, 6.0, 8.0, 10.0);
+    }
+
+    private static void met(Workout.Category category, double principiante, double intermedio, double avanzado) {
+        Map<Workout.Difficulty, Double> byDifficulty = new EnumMap<>(Workout.Difficulty.class);
+        byDifficulty.put(Workout.Difficulty.PRINCIPIANTE, principiante);
+        byDifficulty.put(Workout.Difficulty.INTERMEDIO, intermedio);
+        byDifficulty.put(Workout.Difficulty.AVANZADO, avanzado);
+        MET.put(category, byDifficulty);
+    }
+
+    // A workout without a difficulty counts as INTERMEDIO
+    public double met(Workout workout) {
+        if (workout == null || workout.getCategory() == null) {
+            return DEFAULT_MET;
+        }
+        Workout.Difficulty difficulty = workout.getDifficulty() != null ? workout.getDifficulty() : Workout.Difficulty.INTERMEDIO;
+        return MET.get(workout.getCategory()).get(difficulty);
+    }
+
+    // Logged duration, else the time between start and finish; null while the session is open
+    public Integer minutes(WorkoutSession session) {
+        if (session.getDurationMinutes() != null) {
+            return session.getDurationMinutes();
+        }
+        if (session.getStartedAt() != null && session.getFinishedAt() != null) {
+            return (int) Duration.between(session.getStartedAt(), session.getFinishedAt()).toMinutes();
+        }
+        return null;
+    }
+
+    // Null when the duration is unknown
+    public Integer estimate(WorkoutSession session, Double weightKg) {
+        Integer minutes = minutes(session);
+        if (minutes == null) {
+            return null;
+        }
+        // Decimal arithmetic, like the SQL version with a DECIMAL weight parameter
+        return BigDecimal.valueOf(met(session.getWorkout()))
+                .multiply(weight(weightKg))
+                .multiply(BigDecimal.valueOf(minutes))
+                .divide(SIXTY, 0, RoundingMode.HALF_UP)
+                .intValue();
+    }
+
+    // Bind as the weight parameter of caloriesSql(), so the database computes in DECIMAL too
+    public BigDecimal weight(Double weightKg) {
+        return BigDecimal.valueOf(weightKg != null ? weightKg : REFERENCE_WEIGHT_KG);
+    }
+
+    // SQL for the same estimate over a workout_sessions row (alias s), with weight(...) as its only
+    // parameter. The subquery reads the MET of the session's workout from the table above.
+    public String caloriesSql() {
+        StringBuilder met = new StringBuilder("CASE w.category");
+        for (Map.Entry<Workout.Category, Map<Workout.Difficulty, Double>> category : MET.entrySet()) {
+            met.append(" WHEN '").append(category.getKey().name()).append("' THEN CASE COALESCE(w.difficulty, '")
+                    .append(Workout.Difficulty.INTERMEDIO.name()).append("')");
+            for (Map.Entry<Workout.Difficulty, Double> difficulty : category.getValue().entrySet()) {
+                met.append(" WHEN '").append(difficulty.getKey().name()).append("' THEN ").append(difficulty.getValue());
+            }
+            met.append(" END");
+        }
+        met.append(" ELSE ").append(DEFAULT_MET).append(" END");
+
+        return "ROUND(COALESCE((SELECT " + met + " FROM workouts w WHERE w.id = s.workout_id), " + DEFAULT_MET + ")"
+                + " * ? * " + minutesSql() + " / 60.0)";
+    }
+
+    // Whole elapsed minutes like Duration.toMinutes(); TIMESTAMPDIFF(MINUTE) would count minute
+    // boundaries crossed on H2
+    public String minutesSql() {
+        return "COALESCE(s.duration_minutes, FLOOR(TIMESTAMPDIFF(SECOND, s.started_at, s.finished_at) / 60))";
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.vitalyou.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Re-estimates caloriesBurned for stored sessions after a weight change (or a MET table change).
+// Set-based: one UPDATE per chunk of a user's sessions, each chunk in its own short transaction,
+// so no session entity is loaded and row locks are held for at most chunk-size rows.
+// Sessions without a known duration keep their value.
+@Service
+public class CalorieRecomputeService {
+
+    // Upper id of the next chunk: keyset over the user's sessions, so memory does not grow with the user
+    private static final String NEXT_CHUNK_END = "SELECT MAX(id) FROM (SELECT id FROM workout_sessions"
+            + " WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?) chunk";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CalorieEstimator calorieEstimator;
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${vitalyou.calories.recompute-chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${vitalyou.calories.recompute-threads:4}")
+    private int threads;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String updateChunk;
+
+    // Weight changes, one user at a time, off the request threads
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calorie-recompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        updateChunk = "UPDATE workout_sessions s SET calories_burned = " + calorieEstimator.caloriesSql()
+                + " WHERE s.user_id = ? AND s.id > ? AND s.id <= ? AND " + calorieEstimator.minutesSql() + " IS NOT NULL";
+    }
+
+    // Sessions updated; 0 for an unknown user or one without sessions
+    public int recomputeUser(Long userId) {
+        return shards.forUser(userId, () -> recomputeOnShard(userId));
+    }
+
+    // For a weight change: queued once the change commits, so the request does not wait for every
+    // session of the user and the recomputation reads the new weight
+    public void recomputeUserLater(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(userId);
+                }
+            });
+        } else {
+            submit(userId);
+        }
+    }
+
+    private void submit(Long userId) {
+        background.execute(() -> {
+            try {
+                recomputeUser(userId);
+            } catch (Exception e) {
+                System.err.println("⚠️ No se pudieron recalcular las calorías del usuario " + userId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private int recomputeOnShard(Long userId) {
+        List<Double> weights = jdbcTemplate.queryForList("SELECT weight FROM users WHERE id = ?", Double.class, userId);
+        if (weights.isEmpty()) {
+            return 0;
+        }
+        BigDecimal weight = calorieEstimator.weight(weights.get(0));
+
+        int updated = 0;
+        long after = 0;
+        while (true) {
+            Long end = jdbcTemplate.queryForObject(NEXT_CHUNK_END, Long.class, userId, after, chunkSize);
+            if (end == null) {
+                return updated;
+            }
+            long from = after;
+            updated += transactionTemplate.execute(status -> jdbcTemplate.update(updateChunk, weight, userId, from, end));
+            after = end;
+        }
+    }
+
+    // Every user, recompute-threads users at a time; returns the sessions updated
+    public long recomputeAll() throws InterruptedException {
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Integer>> results = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                results.add(pool.submit(() -> recomputeUser(userId)));
+            }
+            long updated = 0;
+            for (Future<Integer> result : results) {
+                updated += result.get();
+            }
+            return updated;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Calorie recomputation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        background.shutdownNow();
+    }
+}
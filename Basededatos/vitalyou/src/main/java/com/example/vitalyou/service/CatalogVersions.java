@@ -0,0 +1,70 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.config.ReplicaRoutingDataSource;
+import com.example.vitalyou.config.ReplicaSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Version counters behind the ETags of the catalog lists (/api/foods, /api/workouts, /api/workouts/global).
+// The write handlers bump them after the change is committed, and the list handlers read the version
+// before querying. A list is therefore never tagged newer than its contents, and a matching
+// If-None-Match can be answered 304 before any query runs.
+// The instance token keeps a tag from a previous run (whose counters also started at 0) from matching.
+// With read replicas the lists are read through read(), which keeps them on the primary until every
+// replica in rotation shows the last bump's commit: a lagging replica would otherwise answer the new
+// version with the old list, and put that list in the query cache for the rest of its lifetime.
+@Component
+public class CatalogVersions {
+
+    public enum Catalog {
+        FOODS, WORKOUTS
+    }
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<Catalog, AtomicLong> versions = new EnumMap<>(Catalog.class);
+
+    // When each catalog was last bumped, i.e. shortly after its last change committed
+    private final Map<Catalog, LocalDateTime> bumpedAt = new EnumMap<>(Catalog.class);
+
+    @Autowired(required = false)
+    private ReplicaSet replicaSet;
+
+    public CatalogVersions() {
+        for (Catalog catalog : Catalog.values()) {
+            versions.put(catalog, new AtomicLong());
+            bumpedAt.put(catalog, LocalDateTime.MIN);
+        }
+    }
+
+    public void bump(Catalog catalog) {
+        synchronized (bumpedAt) {
+            bumpedAt.put(catalog, LocalDateTime.now());
+        }
+        versions.get(catalog).incrementAndGet();
+    }
+
+    // Runs the query behind a list of the catalog
+    public <T> T read(Catalog catalog, Supplier<T> query) {
+        if (replicaSet == null) {
+            return query.get();
+        }
+        LocalDateTime lastBump;
+        synchronized (bumpedAt) {
+            lastBump = bumpedAt.get(catalog);
+        }
+        return replicaSet.replicatedUpTo().isAfter(lastBump) ? query.get() : ReplicaRoutingDataSource.onPrimary(query);
+    }
+
+    // The variant tells apart lists built from the same catalog. Weak, because the body may go
+    // out gzipped and Tomcat never compresses a response that carries a strong ETag
+    public String etag(Catalog catalog, String variant) {
+        return "W/\"" + variant + "-" + instance + "-" + versions.get(catalog).get() + "\"";
+    }
+}
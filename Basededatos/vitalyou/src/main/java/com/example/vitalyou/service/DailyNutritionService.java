@@ -0,0 +1,137 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.dto.NutritionDay;
+import com.example.vitalyou.model.DailyNutrition;
+import com.example.vitalyou.model.DailyNutritionId;
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.repository.DailyNutritionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Keeps the daily_nutrition rollup in step with the meals table.
+// apply() must run inside the transaction that writes the meal.
+@Service
+public class DailyNutritionService {
+
+    @Autowired
+    private DailyNutritionRepository dailyNutritionRepository;
+
+    // What one or more meals of the same type add to their (user, date) row
+    public record Contribution(Long userId, LocalDate date, Meal.MealType mealType, int meals,
+                               double calories, double protein, double carbs, double fat) {
+
+        public static Contribution of(Meal meal) {
+            double quantity = meal.getQuantity() != null ? meal.getQuantity() : 0;
+            double calories = meal.getTotalCalories() != null ? meal.getTotalCalories() : 0;
+            double protein = 0;
+            double carbs = 0;
+            double fat = 0;
+            Food food = meal.getFood();
+            if (food != null) {
+                protein = food.getProtein() != null ? food.getProtein() * quantity : 0;
+                carbs = food.getCarbs() != null ? food.getCarbs() * quantity : 0;
+                fat = food.getFat() != null ? food.getFat() * quantity : 0;
+            }
+            return new Contribution(meal.getUser().getId(), meal.getDate(), meal.getMealType(), 1,
+                    calories, protein, carbs, fat);
+        }
+
+        // Sum of two contributions to the same (user, date, meal type)
+        public Contribution plus(Contribution other) {
+            return new Contribution(userId, date, mealType, meals + other.meals, calories + other.calories,
+                    protein + other.protein, carbs + other.carbs, fat + other.fat);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Contribution c) {
+        apply(c, 1);
+    }
+
+    // One rollup update per (user, date, meal type) instead of one per meal
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(Collection<Meal> meals) {
+        Map<List<Object>, Contribution> grouped = new LinkedHashMap<>();
+        for (Meal meal : meals) {
+            Contribution contribution = Contribution.of(meal);
+            grouped.merge(List.of(contribution.userId(), contribution.date(), contribution.mealType()),
+                    contribution, Contribution::plus);
+        }
+        for (Contribution contribution : grouped.values()) {
+            apply(contribution, 1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subtract(Contribution c) {
+        apply(c, -1);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<DailyNutrition> find(Long userId, LocalDate date) {
+        return dailyNutritionRepository.findById(new DailyNutritionId(userId, date));
+    }
+
+    // One entry per day in [startDate, endDate], zero-filled for days without meals
+    @Transactional(readOnly = true)
+    public List<NutritionDay> findRange(Long userId, LocalDate startDate, LocalDate endDate) {
+        List<NutritionDay> logged = dailyNutritionRepository.findDays(userId, startDate, endDate);
+        List<NutritionDay> series = new ArrayList<>();
+        int next = 0;
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (next < logged.size() && logged.get(next).date().equals(day)) {
+                series.add(logged.get(next++));
+            } else {
+                series.add(NutritionDay.empty(day));
+            }
+        }
+        return series;
+    }
+
+    // Recompute the whole rollup from the meals table (backfill / repair)
+    @Transactional
+    public int rebuildAll() {
+        dailyNutritionRepository.deleteAllRows();
+        return dailyNutritionRepository.insertAllFromMeals();
+    }
+
+    // The same for one user's rows (ShardRebalancer, after moving their meals)
+    @Transactional
+    public int rebuildUser(Long userId) {
+        dailyNutritionRepository.deleteRowsOfUser(userId);
+        return dailyNutritionRepository.insertFromMealsOfUser(userId);
+    }
+
+    private void apply(Contribution c, int sign) {
+        double breakfast = c.mealType() == Meal.MealType.BREAKFAST ? c.calories() : 0;
+        double lunch = c.mealType() == Meal.MealType.LUNCH ? c.calories() : 0;
+        double dinner = c.mealType() == Meal.MealType.DINNER ? c.calories() : 0;
+        double snack = c.mealType() == Meal.MealType.SNACK ? c.calories() : 0;
+
+        if (sign > 0) {
+            dailyNutritionRepository.upsert(c.userId(), c.date(),
+                    c.calories(), c.protein(), c.carbs(), c.fat(), c.meals(),
+                    breakfast, lunch, dinner, snack);
+            return;
+        }
+
+        // A missing row on subtract means the rollup was never backfilled, which rebuildAll() fixes
+        int updated = dailyNutritionRepository.increment(c.userId(), c.date(),
+                -c.calories(), -c.protein(), -c.carbs(), -c.fat(), -c.meals(),
+                -breakfast, -lunch, -dinner, -snack);
+        if (updated > 0) {
+            dailyNutritionRepository.deleteIfEmpty(c.userId(), c.date());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Row counts per entity without COUNT(*) per request.
+// Loaded once at startup, adjusted by EntityCountListener when a transaction commits,
+// and optionally reconciled against the database (bulk SQL bypasses the listeners).
+@Component
+public class EntityCounters {
+
+    // Entities annotated with @EntityListeners(EntityCountListener.class)
+    private static final List<Class<?>> COUNTED = List.of(
+            User.class, Workout.class, WorkoutSession.class, Meal.class, Food.class, Exercise.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${vitalyou.counters.reconcile-enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Autowired
+    private Shards shards;
+
+    private final Map<Class<?>, LongAdder> counters = new LinkedHashMap<>();
+
+    public EntityCounters() {
+        for (Class<?> type : COUNTED) {
+            counters.put(type, new LongAdder());
+        }
+    }
+
+    public long get(Class<?> type) {
+        LongAdder counter = counters.get(type);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    // Applied when the surrounding transaction commits; lost on rollback
+    public void adjust(Class<?> type, long delta) {
+        LongAdder counter = counters.get(type);
+        if (counter == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counter.add(delta);
+                }
+            });
+        } else {
+            counter.add(delta);
+        }
+    }
+
+    // After DataLoader and the other startup runners
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void initialize() {
+        for (Map.Entry<Class<?>, LongAdder> entry : counters.entrySet()) {
+            LongAdder counter = entry.getValue();
+            counter.reset();
+            counter.add(count(entry.getKey()));
+        }
+        System.out.println("🔢 Contadores de entidades inicializados");
+    }
+
+    // Corrects drift from writes that bypass JPA. A counter that moved while its COUNT(*)
+    // was running is left alone until the next round.
+    @Scheduled(fixedDelayString = "${vitalyou.counters.reconcile-interval:PT10M}",
+               initialDelayString = "${vitalyou.counters.reconcile-interval:PT10M}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        for (Map.Entry<Class<?>, LongAdder> entry : counters.entrySet()) {
+            LongAdder counter = entry.getValue();
+            long before = counter.sum();
+            long actual = count(entry.getKey());
+            long after = counter.sum();
+            if (before == after && actual != after) {
+                counter.add(actual - after);
+                System.out.println("🔢 Contador de " + entry.getKey().getSimpleName() + " corregido: "
+                        + after + " -> " + actual);
+            }
+        }
+    }
+
+    // Meals and sessions are spread over the shards; the other tables are copied to each
+    private long count(Class<?> type) {
+        if (type == Meal.class || type == WorkoutSession.class) {
+            return shards.sum(() -> countHere(type));
+        }
+        return countHere(type);
+    }
+
+    private long countHere(Class<?> type) {
+        return entityManager.createQuery("SELECT COUNT(e) FROM " + type.getSimpleName() + " e", Long.class)
+                .getSingleResult();
+    }
+}
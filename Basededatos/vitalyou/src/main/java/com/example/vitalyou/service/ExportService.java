@@ -0,0 +1,115 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.Workout;
+import com.example.vitalyou.model.WorkoutSession;
+import com.example.vitalyou.repository.MealRepository;
+import com.example.vitalyou.repository.WorkoutSessionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+// Newline-delimited JSON export of a user's full history.
+// Rows are read through a database cursor and detached right after being
+// written, so memory use does not grow with the size of the history.
+@Service
+public class ExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    @Autowired
+    private WorkoutSessionRepository workoutSessionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public record MealRow(Long id, Long userId, LocalDate date, Meal.MealType mealType, Double quantity,
+                          Double totalCalories, LocalDateTime createdAt, Long foodId, String foodName,
+                          Double calories, Double protein, Double carbs, Double fat, String servingSize) {}
+
+    public record WorkoutSessionRow(Long id, Long userId, Long workoutId, String workoutName,
+                                    Workout.Category category, Workout.Difficulty difficulty,
+                                    LocalDateTime startedAt, LocalDateTime finishedAt,
+                                    Integer durationMinutes, Integer caloriesBurned, String notes) {}
+
+    @Transactional(readOnly = true)
+    public long writeMeals(Long userId, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<Meal> meals = mealRepository.streamByUserId(userId);
+             SequenceWriter writer = ndjsonWriter(out)) {
+            for (Meal meal : (Iterable<Meal>) meals::iterator) {
+                Food food = meal.getFood();
+                writer.write(new MealRow(meal.getId(), userId, meal.getDate(), meal.getMealType(),
+                        meal.getQuantity(), meal.getTotalCalories(), meal.getCreatedAt(),
+                        food.getId(), food.getName(), food.getCalories(), food.getProtein(),
+                        food.getCarbs(), food.getFat(), food.getServingSize()));
+                entityManager.detach(meal);
+                entityManager.detach(food);
+                if (++rows % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            if (rows > 0) {
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public long writeWorkoutSessions(Long userId, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<WorkoutSession> sessions = workoutSessionRepository.streamByUserId(userId);
+             SequenceWriter writer = ndjsonWriter(out)) {
+            for (WorkoutSession session : (Iterable<WorkoutSession>) sessions::iterator) {
+                Workout workout = session.getWorkout();
+                writer.write(new WorkoutSessionRow(session.getId(), userId,
+                        workout != null ? workout.getId() : null,
+                        workout != null ? workout.getName() : null,
+                        workout != null ? workout.getCategory() : null,
+                        workout != null ? workout.getDifficulty() : null,
+                        session.getStartedAt(), session.getFinishedAt(), session.getDurationMinutes(),
+                        session.getCaloriesBurned(), session.getNotes()));
+                entityManager.detach(session);
+                if (workout != null) {
+                    entityManager.detach(workout);
+                }
+                if (++rows % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            if (rows > 0) {
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        return rows;
+    }
+
+    // One JSON object per line; the caller owns (and closes) the response stream
+    private SequenceWriter ndjsonWriter(OutputStream out) throws IOException {
+        return objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.service.CatalogVersions.Catalog;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bulk load of the food catalog from a CSV file (e.g. a national nutrient database).
+// - The file is split at line boundaries into chunks, each memory-mapped and parsed by one of
+//   import-threads workers, so the heap only holds one batch per worker.
+// - Rows go to the database with JDBC batch upserts, import-batch-size rows per transaction:
+//   a row with a code replaces the food with the same source_code, a row without one is added.
+// - Rejected rows (bad numbers, missing name...) are counted and the first ones reported by line.
+// Afterwards (also when the import fails after some batch committed) the L2 cache region, the search
+// index, the counters and the catalog ETag are refreshed, and with sharding the foods table is copied
+// to the other shards.
+// Format: a header row naming the columns (code, name, calories, protein, carbs, fat, serving_size,
+// in any order, name and calories required, others ignored), separated by ',' or ';'. Fields may be
+// quoted but not span lines; with ';' a decimal comma is accepted.
+@Service
+public class FoodImportService {
+
+    public record Rejected(long line, String reason, String content) {}
+
+    public record Report(long rows, long inserted, long updated, long rejected, List<Rejected> rejectedRows,
+                         long millis) {}
+
+    public record Progress(boolean running, long bytesRead, long totalBytes, long rows, long rejected) {}
+
+    private static final String UPSERT = "INSERT INTO foods (source_code, name, calories, protein, carbs, fat, "
+            + "serving_size, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "name = VALUES(name), calories = VALUES(calories), protein = VALUES(protein), carbs = VALUES(carbs), "
+            + "fat = VALUES(fat), serving_size = VALUES(serving_size)";
+
+    private static final String[] COLUMNS = {"code", "name", "calories", "protein", "carbs", "fat", "serving_size"};
+    private static final int CODE = 0;
+    private static final int NAME = 1;
+    private static final int CALORIES = 2;
+    private static final int PROTEIN = 3;
+    private static final int CARBS = 4;
+    private static final int FAT = 5;
+    private static final int SERVING_SIZE = 6;
+
+    // Each chunk is mapped on its own: a MappedByteBuffer cannot exceed 2 GB
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final int MAX_TEXT = 255;
+    private static final int MAX_CODE = 64;
+    private static final int MAX_REPORTED_CONTENT = 200;
+    private static final int RETRIES = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FoodSearchIndex foodSearchIndex;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private EntityCounters entityCounters;
+
+    @Autowired
+    private ReferenceReplicator referenceReplicator;
+
+    @Value("${vitalyou.foods.import-threads:4}")
+    private int threads;
+
+    @Value("${vitalyou.foods.import-batch-size:1000}")
+    private int batchSize;
+
+    @Value("${vitalyou.foods.import-reported-rejects:100}")
+    private int reportedRejects;
+
+    @Value("${vitalyou.foods.import-progress-interval:PT5S}")
+    private Duration progressInterval;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private volatile long totalBytes;
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Progress progress() {
+        return new Progress(running.get(), bytesRead.get(), totalBytes, rows.get(), rejected.get());
+    }
+
+    // Empty if another import is running; IllegalArgumentException if the header lacks a required column
+    public Optional<Report> importFile(Path file) throws IOException, InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        long start = System.currentTimeMillis();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "food-import-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long before = 0;
+        Long inserted = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            totalBytes = channel.size();
+            bytesRead.set(0);
+            rows.set(0);
+            rejected.set(0);
+            committedBatches.set(0);
+            before = countFoods();
+            reporter.scheduleAtFixedRate(() -> printProgress(start), progressInterval.toMillis(),
+                    progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+            long headerEnd = nextLineStart(channel, 0);
+            Header header = Header.parse(read(channel, 0, headerEnd));
+            bytesRead.addAndGet(headerEnd);
+            List<ChunkResult> results = importChunks(channel, header, chunks(channel, headerEnd));
+
+            long upserted = 0;
+            List<Rejected> rejectedRows = new ArrayList<>();
+            // Chunk-relative line numbers become file line numbers (the header is line 1)
+            long linesBefore = 1;
+            for (ChunkResult result : results) {
+                upserted += result.upserted;
+                for (Rejected row : result.rejectedRows) {
+                    rejectedRows.add(new Rejected(linesBefore + row.line(), row.reason(), row.content()));
+                }
+                linesBefore += result.lines;
+            }
+            rejectedRows.sort(Comparator.comparingLong(Rejected::line));
+            if (rejectedRows.size() > reportedRejects) {
+                rejectedRows = new ArrayList<>(rejectedRows.subList(0, reportedRejects));
+            }
+
+            inserted = countFoods() - before;
+            return Optional.of(new Report(rows.get(), inserted, upserted - inserted, rejected.get(), rejectedRows,
+                    System.currentTimeMillis() - start));
+        } finally {
+            try {
+                // Every batch commits on its own, so a failed import may still have written rows
+                if (committedBatches.get() > 0) {
+                    refreshCatalog(inserted != null ? inserted : countFoods() - before);
+                }
+            } finally {
+                reporter.shutdownNow();
+                running.set(false);
+            }
+        }
+    }
+
+    private List<ChunkResult> importChunks(FileChannel channel, Header header, List<long[]> chunks)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<ChunkResult>> futures = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                futures.add(pool.submit(() -> importChunk(channel, header, chunk[0], chunk[1])));
+            }
+            List<ChunkResult> results = new ArrayList<>(chunks.size());
+            for (Future<ChunkResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Food import failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Enough chunks to keep every worker busy, none above MAX_CHUNK_BYTES, each ending at a line end
+    private List<long[]> chunks(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        long target = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, (size - from) / (Math.max(1, threads) * 4L)));
+        List<long[]> chunks = new ArrayList<>();
+        long start = from;
+        while (start < size) {
+            long end = start + target >= size ? size : nextLineStart(channel, start + target);
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private ChunkResult importChunk(FileChannel channel, Header header, long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        ChunkResult result = new ChunkResult();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        byte[] line = new byte[256];
+        int limit = buffer.limit();
+        int flushedAt = 0;
+        int position = 0;
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int length = lineEnd - position;
+            if (length > 0 && buffer.get(lineEnd - 1) == '\r') {
+                length--;
+            }
+            if (length > line.length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            buffer.get(position, line, 0, length);
+            position = Math.min(limit, lineEnd + 1);
+            result.lines++;
+            if (length == 0) {
+                continue;
+            }
+
+            rows.incrementAndGet();
+            String text = new String(line, 0, length, StandardCharsets.UTF_8);
+            try {
+                batch.add(header.toRow(text, now));
+            } catch (IllegalArgumentException e) {
+                rejected.incrementAndGet();
+                if (result.rejectedRows.size() < reportedRejects) {
+                    result.rejectedRows.add(new Rejected(result.lines, e.getMessage(),
+                            text.length() > MAX_REPORTED_CONTENT ? text.substring(0, MAX_REPORTED_CONTENT) : text));
+                }
+            }
+            if (batch.size() == batchSize) {
+                result.upserted += flush(transactionTemplate, batch);
+                bytesRead.addAndGet(position - flushedAt);
+                flushedAt = position;
+            }
+        }
+        result.upserted += flush(transactionTemplate, batch);
+        bytesRead.addAndGet(limit - flushedAt);
+        return result;
+    }
+
+    // One transaction per batch; a deadlock with another worker upserting the same codes is retried
+    private int flush(TransactionTemplate transactionTemplate, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT, batch));
+                committedBatches.incrementAndGet();
+                int flushed = batch.size();
+                batch.clear();
+                return flushed;
+            } catch (TransientDataAccessException e) {
+                if (attempt == RETRIES) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void refreshCatalog(long inserted) {
+        // The rows were written around Hibernate, so cached foods and cached query results (the food
+        // list behind the new ETag) may be stale
+        entityManagerFactory.getCache().evict(Food.class);
+        entityManagerFactory.getCache().unwrap(Cache.class).evictDefaultQueryRegion();
+        referenceReplicator.syncTable("foods");
+        entityCounters.adjust(Food.class, inserted);
+        foodSearchIndex.rebuild();
+        catalogVersions.bump(Catalog.FOODS);
+    }
+
+    private long countFoods() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM foods", Long.class);
+    }
+
+    private void printProgress(long start) {
+        long seconds = Math.max(1, (System.currentTimeMillis() - start) / 1000);
+        long total = Math.max(1, totalBytes);
+        System.out.println("📦 Importando alimentos: " + (bytesRead.get() * 100 / total) + "% (" + rows.get()
+                + " filas, " + rejected.get() + " rechazadas, " + rows.get() / seconds + " filas/s)");
+    }
+
+    // Position just after the next '\n' at or after from, or the file size
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static String read(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) > 0) {
+            // keep reading
+        }
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        // Byte order mark some spreadsheet exports start with
+        return text.startsWith("\uFEFF") ? text.substring(1) : text;
+    }
+
+    private static final class ChunkResult {
+        long lines;
+        long upserted;
+        final List<Rejected> rejectedRows = new ArrayList<>();
+    }
+
+    // Where each of COLUMNS is in a row (-1 if absent), and how rows are split
+    private record Header(int[] positions, int width, char separator) {
+
+        static Header parse(String line) {
+            String trimmed = line.strip();
+            char separator = trimmed.indexOf(';') >= 0 && trimmed.indexOf(',') < 0 ? ';' : ',';
+            List<String> names = split(trimmed, separator);
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                index.put(names.get(i).strip().toLowerCase(Locale.ROOT), i);
+            }
+            int[] positions = new int[COLUMNS.length];
+            for (int c = 0; c < COLUMNS.length; c++) {
+                positions[c] = index.getOrDefault(COLUMNS[c], -1);
+            }
+            if (positions[NAME] < 0 || positions[CALORIES] < 0) {
+                throw new IllegalArgumentException("The CSV header must name the columns name and calories");
+            }
+            return new Header(positions, names.size(), separator);
+        }
+
+        // Parameters of UPSERT; IllegalArgumentException with the reason for a rejected row
+        Object[] toRow(String line, Timestamp now) {
+            List<String> fields = split(line, separator);
+            if (fields.size() < width) {
+                throw new IllegalArgumentException("Expected " + width + " columns, found " + fields.size());
+            }
+            String code = text(fields, CODE, MAX_CODE);
+            String name = text(fields, NAME, MAX_TEXT);
+            if (name == null) {
+                throw new IllegalArgumentException("Missing name");
+            }
+            Double calories = number(fields, CALORIES);
+            if (calories == null) {
+                throw new IllegalArgumentException("Missing calories");
+            }
+            return new Object[] {code, name, calories, number(fields, PROTEIN), number(fields, CARBS), number(fields, FAT),
+                    text(fields, SERVING_SIZE, MAX_TEXT), now};
+        }
+
+        private String text(List<String> fields, int column, int maxLength) {
+            if (positions[column] < 0) {
+                return null;
+            }
+            String value = fields.get(positions[column]).strip();
+            if (value.length() > maxLength) {
+                throw new IllegalArgumentException(COLUMNS[column] + " longer than " + maxLength + " characters");
+            }
+            return value.isEmpty() ? null : value;
+        }
+
+        private Double number(List<String> fields, int column) {
+            String value = text(fields, column, MAX_TEXT);
+            if (value == null) {
+                return null;
+            }
+            try {
+                double number = Double.parseDouble(separator == ';' ? value.replace(',', '.') : value);
+                if (number < 0 || Double.isNaN(number) || Double.isInfinite(number)) {
+                    throw new IllegalArgumentException(COLUMNS[column] + " out of range: " + value);
+                }
+                return number;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(COLUMNS[column] + " is not a number: " + value);
+            }
+        }
+
+        // Fields in double quotes may contain the separator; "" inside them is a quote
+        private static List<String> split(String line, char separator) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
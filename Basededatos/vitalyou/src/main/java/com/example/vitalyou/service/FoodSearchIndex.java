@@ -0,0 +1,252 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.repository.FoodRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory typeahead index for the food catalog.
+// - Prefix lookups (name start and word start) walk sorted maps and stop at the limit.
+// - Substring lookups use trigram postings, verified against the normalized name.
+// Writes are serialized, reads are lock-free. The write lock is a ReentrantLock rather than
+// synchronized so a rebuild blocked on JDBC does not pin a virtual thread's carrier.
+@Component
+public class FoodSearchIndex {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final int GRAM = 3;
+    private static final int LOAD_PAGE_SIZE = 5000;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    // food id -> indexed entry
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // "<normalized name>\0<id>" -> food id
+    private final NavigableMap<String, Long> names = new ConcurrentSkipListMap<>();
+
+    // "<normalized name from the 2nd, 3rd... word>\0<id>" -> food id
+    private final NavigableMap<String, Long> words = new ConcurrentSkipListMap<>();
+
+    // trigram -> food ids containing it
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile boolean ready = false;
+
+    private record Entry(Food food, String normalizedName) {}
+
+    // Load the whole catalog once the application (and DataLoader) is up
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            ready = false;
+            entries.clear();
+            names.clear();
+            words.clear();
+            grams.clear();
+
+            PageRequest page = PageRequest.of(0, LOAD_PAGE_SIZE, Sort.by("id"));
+            Slice<Food> slice;
+            do {
+                slice = foodRepository.findAllBy(page);
+                for (Food food : slice) {
+                    add(food);
+                }
+                page = page.next();
+            } while (slice.hasNext());
+
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        System.out.println("🔎 Índice de búsqueda de alimentos listo: " + entries.size() + " alimentos");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Insert or replace a single food (createFood / updateFood)
+    public void put(Food food) {
+        if (food == null || food.getId() == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            remove(food.getId());
+            add(food);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Drop a single food (deleteFood)
+    public void remove(Long id) {
+        writeLock.lock();
+        try {
+            Entry old = entries.remove(id);
+            if (old == null) {
+                return;
+            }
+            String name = old.normalizedName();
+            names.remove(key(name, id));
+            for (int start : wordStarts(name)) {
+                words.remove(key(name.substring(start), id));
+            }
+            for (String gram : gramsOf(name)) {
+                Set<Long> ids = grams.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Ranked search: name prefix, then word prefix, then substring.
+    // Within each rank results are in alphabetical order.
+    public List<Food> search(String query, int limit) {
+        String q = normalize(query);
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (q.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> seen = new LinkedHashSet<>();
+        collectPrefix(names, q, max, seen);
+        collectPrefix(words, q, max, seen);
+
+        // Substring matches through the trigram postings (needs at least one full gram)
+        if (seen.size() < max && q.length() >= GRAM) {
+            Set<Long> candidates = null;
+            for (String gram : gramsOf(q)) {
+                Set<Long> ids = grams.get(gram);
+                if (ids == null) {
+                    candidates = Set.of();
+                    break;
+                }
+                if (candidates == null || ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+            List<Entry> substrings = new ArrayList<>();
+            for (Long id : candidates) {
+                Entry entry = entries.get(id);
+                if (entry != null && !seen.contains(id) && entry.normalizedName().contains(q)) {
+                    substrings.add(entry);
+                }
+            }
+            substrings.sort(Comparator.comparing(Entry::normalizedName));
+            for (Entry entry : substrings) {
+                if (seen.size() >= max) {
+                    break;
+                }
+                seen.add(entry.food().getId());
+            }
+        }
+
+        List<Food> result = new ArrayList<>(seen.size());
+        for (Long id : seen) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                result.add(entry.food());
+            }
+        }
+        return result;
+    }
+
+    private static void collectPrefix(NavigableMap<String, Long> map, String q, int max, Set<Long> seen) {
+        for (Long id : map.subMap(q, true, q + Character.MAX_VALUE, true).values()) {
+            if (seen.size() >= max) {
+                return;
+            }
+            seen.add(id);
+        }
+    }
+
+    private void add(Food food) {
+        if (food.getId() == null || food.getName() == null) {
+            return;
+        }
+        Long id = food.getId();
+        String name = normalize(food.getName());
+        entries.put(id, new Entry(food, name));
+        names.put(key(name, id), id);
+        for (int start : wordStarts(name)) {
+            words.put(key(name.substring(start), id), id);
+        }
+        for (String gram : gramsOf(name)) {
+            grams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    // Lowercase and strip accents so "brocoli" finds "Brócoli", like MySQL's *_ai_ci collations
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String value, Long id) {
+        return value + KEY_SEPARATOR + id;
+    }
+
+    // Start offsets of every word after the first one
+    private static List<Integer> wordStarts(String name) {
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 1; i < name.length(); i++) {
+            if (Character.isLetterOrDigit(name.charAt(i)) && !Character.isLetterOrDigit(name.charAt(i - 1))) {
+                starts.add(i);
+            }
+        }
+        return starts;
+    }
+
+    private static Set<String> gramsOf(String value) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            result.add(value.substring(i, i + GRAM));
+        }
+        return result;
+    }
+}
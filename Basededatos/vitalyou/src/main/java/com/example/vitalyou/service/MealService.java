@@ -0,0 +1,146 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Food;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.User;
+import com.example.vitalyou.repository.FoodRepository;
+import com.example.vitalyou.repository.MealRepository;
+import com.example.vitalyou.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Meal writes together with their daily_nutrition rollup update, in one transaction.
+// The user is checked with UserExistence and referenced by id, never loaded; foods come from the L2 cache.
+@Service
+public class MealService {
+
+    @Autowired
+    private MealRepository mealRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FoodRepository foodRepository;
+
+    @Autowired
+    private UserExistence userExistence;
+
+    @Autowired
+    private DailyNutritionService dailyNutritionService;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    // Empty if the user or the food does not exist
+    @Transactional
+    public Optional<Meal> createMeal(Long userId, Long foodId, Double quantity, Meal.MealType mealType, LocalDate date) {
+        Optional<Food> food = foodRepository.findById(foodId);
+        if (food.isEmpty() || !userExistence.exists(userId)) {
+            return Optional.empty();
+        }
+
+        Meal savedMeal = mealRepository.save(new Meal(userRepository.getReferenceById(userId), food.get(), quantity, mealType, date));
+        dailyNutritionService.add(DailyNutritionService.Contribution.of(savedMeal));
+        return Optional.of(savedMeal);
+    }
+
+    // Write-behind path: a validated meal with its id assigned, not stored yet.
+    // Not transactional, so an id block refill never waits for a second pooled connection.
+    // Empty if the user or the food does not exist
+    public Optional<Meal> prepareMeal(Long userId, Long foodId, Double quantity, Meal.MealType mealType, LocalDate date) {
+        Optional<Food> food = foodRepository.findById(foodId);
+        if (food.isEmpty() || quantity == null || !userExistence.exists(userId)) {
+            return Optional.empty();
+        }
+
+        Meal meal = new Meal(userRepository.getReferenceById(userId), food.get(), quantity, mealType, date);
+        meal.setId(idAllocator.next(Meal.class));
+        return Optional.of(meal);
+    }
+
+    public static final int MAX_BATCH_SIZE = 100;
+
+    // One food of a batch; the batch belongs to a single user
+    public record MealInput(Long foodId, Double quantity, Meal.MealType mealType, LocalDate date) {}
+
+    // All-or-nothing: empty if the user or any of the foods does not exist.
+    // One IN query for the foods and batched INSERTs at flush; the user is not loaded.
+    @Transactional
+    public Optional<List<Meal>> createMeals(Long userId, List<MealInput> inputs) {
+        if (!userExistence.exists(userId)) {
+            return Optional.empty();
+        }
+        User user = userRepository.getReferenceById(userId);
+
+        Set<Long> foodIds = new HashSet<>();
+        for (MealInput input : inputs) {
+            foodIds.add(input.foodId());
+        }
+        Map<Long, Food> foods = foodRepository.findAllById(foodIds).stream()
+                .collect(Collectors.toMap(Food::getId, Function.identity()));
+        if (foods.size() != foodIds.size()) {
+            return Optional.empty();
+        }
+
+        List<Meal> meals = new ArrayList<>(inputs.size());
+        for (MealInput input : inputs) {
+            meals.add(new Meal(user, foods.get(input.foodId()), input.quantity(), input.mealType(), input.date()));
+        }
+        List<Meal> savedMeals = mealRepository.saveAll(meals);
+        dailyNutritionService.addAll(savedMeals);
+        return Optional.of(savedMeals);
+    }
+
+    // Null arguments leave the field unchanged; empty if the meal does not exist
+    @Transactional
+    public Optional<Meal> updateMeal(Long id, Double quantity, Meal.MealType mealType, LocalDate date) {
+        Optional<Meal> optionalMeal = mealRepository.findWithFoodById(id);
+        if (optionalMeal.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Meal meal = optionalMeal.get();
+        DailyNutritionService.Contribution before = DailyNutritionService.Contribution.of(meal);
+
+        if (quantity != null) {
+            meal.setQuantity(quantity);
+        }
+        if (mealType != null) {
+            meal.setMealType(mealType);
+        }
+        if (date != null) {
+            meal.setDate(date);
+        }
+
+        Meal updatedMeal = mealRepository.save(meal);
+        DailyNutritionService.Contribution after = DailyNutritionService.Contribution.of(updatedMeal);
+        if (!before.equals(after)) {
+            dailyNutritionService.subtract(before);
+            dailyNutritionService.add(after);
+        }
+        return Optional.of(updatedMeal);
+    }
+
+    @Transactional
+    public boolean deleteMeal(Long id) {
+        Optional<Meal> meal = mealRepository.findWithFoodById(id);
+        if (meal.isEmpty()) {
+            return false;
+        }
+        dailyNutritionService.subtract(DailyNutritionService.Contribution.of(meal.get()));
+        mealRepository.delete(meal.get());
+        return true;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.vitalyou.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Keeps the reference tables (users, foods, workouts, exercises) identical on every shard, so the
+// sharded rows always find the rows they point at and the L2 cache means the same thing everywhere.
+// - Row by row: ReferenceReplicationListener reports each JPA insert/update/delete, and the row is
+//   copied from the shard it was written on to the others once the transaction commits.
+// - In full, at startup and every sync-interval, with shard 0 as the source of truth: catches up a new
+//   shard and anything written around JPA.
+// A delete that a shard refuses (sharded rows still point at the row) is logged and retried by the next
+// full sync. Inserts of reference rows must happen on shard 0, the only shard whose ids are assigned.
+@Service
+public class ReferenceReplicator {
+
+    // Parents before children, for the foreign keys between them
+    static final List<String> TABLES = List.of("users", "foods", "workouts", "exercises");
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void changed(Object entity) {
+        if (shards.count() == 1) {
+            return;
+        }
+        String table = Hibernate.getClass(entity).getAnnotation(Table.class).name();
+        Object id = entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity);
+        int source = Shards.currentOrHome();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    copyRow(table, id, source);
+                }
+            });
+        } else {
+            copyRow(table, id, source);
+        }
+    }
+
+    // Writes through each shard's own pool: afterCommit still has the source transaction's connection bound
+    private void copyRow(String table, Object id, int source) {
+        SqlRowSet row = shards.jdbc(source).queryForRowSet("SELECT * FROM " + table + " WHERE id = ?", id);
+        boolean exists = row.next();
+        List<String> columns = columns(row.getMetaData());
+        Object[] values = exists ? values(row, columns) : null;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            if (shard == source) {
+                continue;
+            }
+            try {
+                JdbcTemplate target = shards.jdbc(shard);
+                if (exists) {
+                    upsert(target, table, columns, List.<Object[]>of(values));
+                } else {
+                    target.update("DELETE FROM " + table + " WHERE id = ?", id);
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ No se pudo replicar " + table + " " + id + " en el shard " + shard + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${vitalyou.sharding.sync-interval:PT10M}",
+               initialDelayString = "${vitalyou.sharding.sync-interval:PT10M}")
+    public void syncAll() {
+        if (shards.count() == 1) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        for (int shard = 1; shard < shards.count(); shard++) {
+            for (String table : TABLES) {
+                copyTable(table, shard);
+            }
+            for (int i = TABLES.size() - 1; i >= 0; i--) {
+                deleteMissing(TABLES.get(i), shard);
+            }
+        }
+        System.out.println("🔁 Datos de referencia sincronizados en " + shards.count() + " shards en "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Full copy of one table from shard 0, after writes that bypass JPA (e.g. FoodImportService)
+    public void syncTable(String table) {
+        for (int shard = 1; shard < shards.count(); shard++) {
+            copyTable(table, shard);
+        }
+    }
+
+    private void copyTable(String table, int shard) {
+        JdbcTemplate target = shards.jdbc(shard);
+        List<String> columns = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        shards.jdbc(0).query("SELECT * FROM " + table + " ORDER BY id", rs -> {
+            if (columns.isEmpty()) {
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    columns.add(rs.getMetaData().getColumnLabel(i));
+                }
+            }
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = rs.getObject(i + 1);
+            }
+            batch.add(values);
+            if (batch.size() == BATCH_SIZE) {
+                upsert(target, table, columns, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            upsert(target, table, columns, batch);
+        }
+    }
+
+    private void deleteMissing(String table, int shard) {
+        Set<Long> source = new HashSet<>(shards.jdbc(0).queryForList("SELECT id FROM " + table, Long.class));
+        JdbcTemplate target = shards.jdbc(shard);
+        for (Long id : target.queryForList("SELECT id FROM " + table, Long.class)) {
+            if (!source.contains(id)) {
+                try {
+                    target.update("DELETE FROM " + table + " WHERE id = ?", id);
+                } catch (Exception e) {
+                    System.err.println("⚠️ No se pudo borrar " + table + " " + id + " en el shard " + shard + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // UPDATE by id, then INSERT the rows that were not there; rows are column values in columns order
+    // with the id among them
+    private static void upsert(JdbcTemplate target, String table, List<String> columns, List<Object[]> rows) {
+        int idIndex = indexOfId(columns);
+        List<String> assignments = columns.stream().filter(c -> !c.equalsIgnoreCase("id")).map(c -> c + " = ?").toList();
+        String update = "UPDATE " + table + " SET " + String.join(", ", assignments) + " WHERE id = ?";
+        List<Object[]> updateArgs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Object[] args = new Object[columns.size()];
+            int next = 0;
+            for (int i = 0; i < row.length; i++) {
+                if (i != idIndex) {
+                    args[next++] = row[i];
+                }
+            }
+            args[next] = row[idIndex];
+            updateArgs.add(args);
+        }
+        int[] updated = target.batchUpdate(update, updateArgs);
+
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            String insert = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                    + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+            target.batchUpdate(insert, missing);
+        }
+    }
+
+    private static int indexOfId(List<String> columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase("id")) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No id column in " + columns);
+    }
+
+    private static List<String> columns(SqlRowSetMetaData metaData) {
+        List<String> columns = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(metaData.getColumnLabel(i));
+        }
+        return columns;
+    }
+
+    private static Object[] values(SqlRowSet row, List<String> columns) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.getObject(i + 1);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.vitalyou.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+// Moves users whose rows are not on the shard their id hashes to, e.g. after adding a shard
+// (jump hashing moves about 1/n of the users to the new one and leaves the rest alone).
+// A user's meals and sessions are copied in id chunks, each chunk inserted on the target and then
+// deleted from the source, so an interrupted run can simply be started again; daily_nutrition is
+// rebuilt on both sides at the end. Requests already go to the new shard while the move runs, so
+// the user sees part of their history until it is done: run it in a quiet period.
+@Service
+public class ShardRebalancer {
+
+    private static final List<String> TABLES = List.of("meals", "workout_sessions");
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ReferenceReplicator referenceReplicator;
+
+    @Autowired
+    private DailyNutritionService dailyNutritionService;
+
+    @Value("${vitalyou.sharding.rebalance-threads:4}")
+    private int threads;
+
+    @Value("${vitalyou.sharding.rebalance-chunk-size:1000}")
+    private int chunkSize;
+
+    // Users moved
+    public int rebalance() throws InterruptedException {
+        if (shards.count() == 1) {
+            return 0;
+        }
+        // Moved rows point at users, foods and workouts, which a new shard may not have yet
+        referenceReplicator.syncAll();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> moves = new ArrayList<>();
+            for (int shard = 0; shard < shards.count(); shard++) {
+                List<Long> userIds = shards.jdbc(shard).queryForList("SELECT user_id FROM meals UNION "
+                        + "SELECT user_id FROM workout_sessions WHERE user_id IS NOT NULL", Long.class);
+                for (Long userId : userIds) {
+                    int from = shard;
+                    int to = shards.shardOf(userId);
+                    if (to != from) {
+                        moves.add(pool.submit(() -> moveUser(userId, from, to)));
+                    }
+                }
+            }
+            for (Future<?> move : moves) {
+                move.get();
+            }
+            return moves.size();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shard rebalancing failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void moveUser(Long userId, int from, int to) {
+        for (String table : TABLES) {
+            moveRows(table, userId, from, to);
+        }
+        shards.on(to, () -> dailyNutritionService.rebuildUser(userId));
+        shards.on(from, () -> dailyNutritionService.rebuildUser(userId));
+    }
+
+    private long moveRows(String table, Long userId, int from, int to) {
+        JdbcTemplate source = shards.jdbc(from);
+        JdbcTemplate target = shards.jdbc(to);
+        String selectChunk = "SELECT * FROM " + table + " WHERE user_id = ? ORDER BY id LIMIT ?";
+        long moved = 0;
+        while (true) {
+            // Deleted from the source as they go, so the first rows are always the next chunk
+            List<String> columns = new ArrayList<>();
+            List<Object[]> rows = new ArrayList<>(chunkSize);
+            source.query(selectChunk, rs -> {
+                if (columns.isEmpty()) {
+                    for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                        columns.add(rs.getMetaData().getColumnLabel(i));
+                    }
+                }
+                Object[] values = new Object[columns.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = rs.getObject(i + 1);
+                }
+                rows.add(values);
+            }, userId, chunkSize);
+            if (rows.isEmpty()) {
+                return moved;
+            }
+
+            int idIndex = indexOfId(columns);
+            List<Long> ids = rows.stream().map(row -> ((Number) row[idIndex]).longValue()).toList();
+            String inIds = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+            // Rows a previous, interrupted run already copied
+            Set<Long> present = new HashSet<>(target.queryForList(
+                    "SELECT id FROM " + table + " WHERE id IN (" + inIds + ")", Long.class, ids.toArray()));
+            List<Object[]> missing = rows.stream()
+                    .filter(row -> !present.contains(((Number) row[idIndex]).longValue()))
+                    .toList();
+            if (!missing.isEmpty()) {
+                target.batchUpdate("INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                        + columns.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")", missing);
+            }
+            source.update("DELETE FROM " + table + " WHERE id IN (" + inIds + ")", ids.toArray());
+            moved += rows.size();
+        }
+    }
+
+    private static int indexOfId(List<String> columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase("id")) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No id column in " + columns);
+    }
+}
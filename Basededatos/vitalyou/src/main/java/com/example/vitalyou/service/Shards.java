@@ -0,0 +1,199 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.config.ShardSet;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// User-owned rows (meals, workout_sessions, daily_nutrition) live on the shard picked by a jump
+// consistent hash of the user id; reference tables are copied to every shard (ReferenceReplicator).
+// The shard of the current thread is what the routing DataSource (config/ShardRoutingDataSource)
+// connects to, so repositories stay unaware of sharding. It has to be chosen before the transaction
+// runs its first statement; with no shard chosen statements go to shard 0.
+// Without vitalyou.sharding.urls there is a single shard and every method here just runs its work.
+@Component
+public class Shards {
+
+    // Each shard's id_generators rows count up from shard * ID_SPACE, so the blocks they hand out
+    // never overlap: ids are unique across shards and stay unique when rows move. Hibernate keeps one
+    // pooled optimizer per entity, not per shard, so a block fetched on one shard is used up by inserts
+    // on any of them and an id does not tell which shard its row is on
+    public static final long ID_SPACE = 1L << 40;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    @Autowired(required = false)
+    private ShardSet shardSet;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile ExecutorService gatherPool;
+
+    public int count() {
+        return shardSet != null ? shardSet.size() : 1;
+    }
+
+    public int shardOf(Long userId) {
+        return userId == null ? 0 : jumpHash(userId, count());
+    }
+
+    // Shard chosen for this thread, or null (shard 0)
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static int currentOrHome() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : 0;
+    }
+
+    // For request-scoped routing (ShardInterceptor); pair with clear()
+    public static void enter(int shard) {
+        CURRENT.set(shard);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public <T, E extends Exception> T on(int shard, Work<T, E> work) throws E {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public <T, E extends Exception> T forUser(Long userId, Work<T, E> work) throws E {
+        return on(shardOf(userId), work);
+    }
+
+    // The work once per shard, one after the other; results in shard order
+    public <T, E extends Exception> List<T> onEach(Work<T, E> work) throws E {
+        List<T> results = new ArrayList<>(count());
+        for (int shard = 0; shard < count(); shard++) {
+            results.add(on(shard, work));
+        }
+        return results;
+    }
+
+    // Scatter-gather read: the query runs on every shard in parallel, each in its own read-only
+    // transaction, and the first limit rows in order are kept. Each shard has to return its rows
+    // in that order and at least limit of them when it has them (a keyset page does).
+    public <T> List<T> gather(Comparator<? super T> order, int limit, Supplier<List<T>> query) {
+        if (count() == 1) {
+            return query.get();
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        List<CompletableFuture<List<T>>> parts = new ArrayList<>(count());
+        for (int shard = 0; shard < count(); shard++) {
+            int target = shard;
+            parts.add(CompletableFuture.supplyAsync(() -> on(target, () -> readOnly.execute(status -> query.get())),
+                    gatherPool()));
+        }
+        List<T> rows = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<T>> part : parts) {
+                rows.addAll(part.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        rows.sort(order);
+        return rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    public long sum(Supplier<Long> count) {
+        if (count() == 1) {
+            return count.get();
+        }
+        return gather((a, b) -> 0, Integer.MAX_VALUE, () -> List.of(count.get()))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Shard holding the row with this id (meals or workout_sessions), asking each shard in turn:
+    // the id itself does not tell (see ID_SPACE)
+    public Optional<Integer> locate(String table, Long id) {
+        if (count() == 1) {
+            return Optional.of(0);
+        }
+        for (int shard = 0; shard < count(); shard++) {
+            if (!jdbc(shard).queryForList("SELECT 1 FROM " + table + " WHERE id = ?", Integer.class, id).isEmpty()) {
+                return Optional.of(shard);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Direct access to one shard's pool, outside the routing and any Spring transaction
+    public JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shardSet != null ? shardSet.get(shard) : dataSource);
+    }
+
+    // Lamping & Veach: when a shard is added only 1/n of the users change shard
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    private ExecutorService gatherPool() {
+        if (gatherPool == null) {
+            synchronized (this) {
+                if (gatherPool == null) {
+                    gatherPool = Executors.newFixedThreadPool(count() * 4, runnable -> {
+                        Thread thread = new Thread(runnable, "shard-gather");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return gatherPool;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (gatherPool != null) {
+            gatherPool.shutdownNow();
+        }
+    }
+}
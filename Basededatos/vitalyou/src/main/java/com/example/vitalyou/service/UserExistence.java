@@ -0,0 +1,68 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+// Which user ids exist, for the 404 of user-scoped endpoints without a users lookup per request.
+// Bounded (existence-cache-size ids, least recently used out first) and positive only: an id is
+// cached once seen to exist, on creation or on a miss that finds the row. UserController forgets
+// deleted users; deletes on another instance are picked up after existence-ttl.
+// Metrics: cache.gets / cache.size with cache=user-existence.
+@Service
+public class UserExistence {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${vitalyou.users.existence-cache-size:100000}")
+    private long maximumSize;
+
+    @Value("${vitalyou.users.existence-ttl:PT10M}")
+    private Duration ttl;
+
+    private Cache<Long, Boolean> known;
+
+    @PostConstruct
+    void init() {
+        known = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, known, "user-existence");
+    }
+
+    public boolean exists(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (known.getIfPresent(userId) != null) {
+            return true;
+        }
+        if (!userRepository.existsById(userId)) {
+            return false;
+        }
+        known.put(userId, Boolean.TRUE);
+        return true;
+    }
+
+    public void remember(Long userId) {
+        known.put(userId, Boolean.TRUE);
+    }
+
+    public void forget(Long userId) {
+        known.invalidate(userId);
+    }
+}
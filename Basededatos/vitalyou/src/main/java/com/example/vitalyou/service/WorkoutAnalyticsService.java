@@ -0,0 +1,119 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.dto.SessionDay;
+import com.example.vitalyou.dto.WorkoutAnalytics;
+import com.example.vitalyou.repository.WorkoutSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Base64;
+import java.util.List;
+
+// Streaks, weekly totals and the yearly heatmap from one GROUP BY over the user's sessions.
+// The active days go into a BitSet (bit = days since the first active day), so streaks are
+// found by jumping between set and clear runs instead of walking every session.
+@Service
+public class WorkoutAnalyticsService {
+
+    public static final int DEFAULT_WEEKS = 12;
+    public static final int MAX_WEEKS = 104;
+
+    @Autowired
+    private WorkoutSessionRepository workoutSessionRepository;
+
+    @Transactional(readOnly = true)
+    public WorkoutAnalytics analytics(Long userId, int weeks, int year, LocalDate today) {
+        List<SessionDay> days = workoutSessionRepository.findSessionDays(userId);
+
+        long totalSessions = 0;
+        long totalMinutes = 0;
+        long totalCalories = 0;
+        for (SessionDay day : days) {
+            totalSessions += day.sessions();
+            totalMinutes += day.minutes();
+            totalCalories += day.calories();
+        }
+
+        LocalDate origin = days.isEmpty() ? today : days.get(0).date();
+        BitSet active = new BitSet();
+        for (SessionDay day : days) {
+            active.set(index(origin, day.date()));
+        }
+
+        return new WorkoutAnalytics(userId, currentStreak(active, index(origin, today)), longestStreak(active),
+                totalSessions, totalMinutes, totalCalories, weeks(days, weeks, today), heatmap(days, year));
+    }
+
+    // Run of active days ending today, or yesterday when nothing is logged yet today
+    private static int currentStreak(BitSet active, int today) {
+        if (today < 0) {
+            return 0;
+        }
+        int end = active.get(today) ? today : today - 1;
+        if (end < 0 || !active.get(end)) {
+            return 0;
+        }
+        return end - active.previousClearBit(end);
+    }
+
+    private static int longestStreak(BitSet active) {
+        int longest = 0;
+        for (int start = active.nextSetBit(0); start >= 0; ) {
+            int end = active.nextClearBit(start);
+            longest = Math.max(longest, end - start);
+            start = active.nextSetBit(end);
+        }
+        return longest;
+    }
+
+    private static List<WorkoutAnalytics.Week> weeks(List<SessionDay> days, int count, LocalDate today) {
+        LocalDate firstWeek = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(count - 1);
+        long[] sessions = new long[count];
+        long[] minutes = new long[count];
+        long[] calories = new long[count];
+        // Days come oldest first: walk back from the newest until before the first week
+        for (int i = days.size() - 1; i >= 0; i--) {
+            SessionDay day = days.get(i);
+            if (day.date().isBefore(firstWeek)) {
+                break;
+            }
+            long week = ChronoUnit.WEEKS.between(firstWeek, day.date());
+            if (week < count) {
+                sessions[(int) week] += day.sessions();
+                minutes[(int) week] += day.minutes();
+                calories[(int) week] += day.calories();
+            }
+        }
+
+        List<WorkoutAnalytics.Week> result = new ArrayList<>(count);
+        for (int week = 0; week < count; week++) {
+            result.add(new WorkoutAnalytics.Week(firstWeek.plusWeeks(week), sessions[week], minutes[week], calories[week]));
+        }
+        return result;
+    }
+
+    private static WorkoutAnalytics.Heatmap heatmap(List<SessionDay> days, int year) {
+        int length = LocalDate.of(year, 12, 31).getDayOfYear();
+        BitSet bits = new BitSet(length);
+        for (SessionDay day : days) {
+            if (day.date().getYear() == year) {
+                bits.set(day.date().getDayOfYear() - 1);
+            }
+        }
+        // toByteArray() drops trailing zero bytes; pad so the length does not depend on the data
+        byte[] bytes = Arrays.copyOf(bits.toByteArray(), (length + 7) / 8);
+        return new WorkoutAnalytics.Heatmap(year, length, bits.cardinality(), Base64.getEncoder().encodeToString(bytes));
+    }
+
+    private static int index(LocalDate origin, LocalDate day) {
+        return (int) (day.toEpochDay() - origin.toEpochDay());
+    }
+}
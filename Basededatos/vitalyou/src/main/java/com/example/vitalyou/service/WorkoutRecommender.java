@@ -0,0 +1,334 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.dto.WorkoutView;
+import com.example.vitalyou.model.Workout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// "Recommended for you": the top-k available workouts (global + the user's own) per user, kept in memory.
+// - A user's preferences are one float[] of counts over FEATURES slots (category, difficulty and duration
+//   band), finished and abandoned separately; a workout scores the sum of the user's preference for its
+//   three features, plus a little popularity so new users get the most finished workouts.
+// - The batch job (at startup and every refresh-interval) rebuilds every vector from one GROUP BY per
+//   shard and ranks all users in parallel with threads workers. An abandoned session is one not finished
+//   abandon-after after it started.
+// - completeSession() adds to the vector after commit and re-ranks that user right away.
+// - recommend() only copies the stored top-k: O(k), no database.
+// A completion committed while the batch runs may be missed until the next batch.
+@Service
+public class WorkoutRecommender {
+
+    private static final int CATEGORIES = Workout.Category.values().length;
+    private static final int DIFFICULTIES = Workout.Difficulty.values().length;
+    // Upper bounds (minutes) of the duration bands; longer workouts are the last band
+    private static final int[] DURATION_BANDS = {20, 40, 60};
+    static final int FEATURES = CATEGORIES + DIFFICULTIES + DURATION_BANDS.length + 1;
+
+    // Counts layout: finished per feature, abandoned per feature, total sessions
+    private static final int ABANDONED = FEATURES;
+    private static final int TOTAL = 2 * FEATURES;
+
+    // An abandoned session costs half of what a finished one earns
+    private static final float ABANDON_WEIGHT = 0.5f;
+    private static final float POPULARITY_WEIGHT = 0.1f;
+
+    private static final String SESSION_COUNTS = "SELECT user_id, workout_id,"
+            + " SUM(CASE WHEN finished_at IS NOT NULL THEN 1 ELSE 0 END),"
+            + " SUM(CASE WHEN finished_at IS NULL AND started_at < ? THEN 1 ELSE 0 END)"
+            + " FROM workout_sessions WHERE user_id IS NOT NULL AND workout_id IS NOT NULL"
+            + " GROUP BY user_id, workout_id";
+
+    @Autowired
+    private Shards shards;
+
+    @Value("${vitalyou.recommendations.top-k:20}")
+    private int topK;
+
+    @Value("${vitalyou.recommendations.threads:4}")
+    private int threads;
+
+    @Value("${vitalyou.recommendations.abandon-after:PT3H}")
+    private Duration abandonAfter;
+
+    // Workouts as of the last batch, ordered by id; parallel arrays indexed by position
+    private record Catalog(long[] ids, long[] owners, int[] features, float[] popularity, WorkoutView[] views) {
+
+        int indexOf(long workoutId) {
+            return Arrays.binarySearch(ids, workoutId);
+        }
+    }
+
+    // Best catalog positions first, against that catalog
+    private record Ranking(Catalog catalog, int[] top) {}
+
+    // Per user: counts (see layout above) and the current ranking
+    private static final class Profile {
+        final float[] counts = new float[TOTAL + 1];
+        volatile Ranking ranking;
+    }
+
+    private volatile Catalog catalog;
+
+    // Replaced as a whole by each batch, with the abandon cutoff its counts used (null before the first)
+    private record Profiles(Map<Long, Profile> byUser, LocalDateTime abandonCutoff) {}
+
+    private volatile Profiles profiles = new Profiles(new ConcurrentHashMap<>(), null);
+
+    public int topK() {
+        return topK;
+    }
+
+    // Up to limit workouts, best first; empty until the first batch has run
+    public List<WorkoutView> recommend(Long userId, int limit) {
+        Map<Long, Profile> current = profiles.byUser();
+        Profile profile = current.get(userId);
+        if (profile == null) {
+            // No sessions yet: popularity and the user's own workouts
+            Catalog workouts = catalog;
+            if (workouts == null) {
+                return List.of();
+            }
+            profile = new Profile();
+            rank(profile, userId, workouts);
+            Profile existing = current.putIfAbsent(userId, profile);
+            profile = existing != null ? existing : profile;
+        }
+        Ranking ranking = profile.ranking;
+        if (ranking == null) {
+            // Created by a completion that is still ranking it
+            return List.of();
+        }
+        int size = Math.min(limit, ranking.top().length);
+        List<WorkoutView> views = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            views.add(ranking.catalog().views()[ranking.top()[i]]);
+        }
+        return views;
+    }
+
+    // Called inside the completing transaction; applied once it commits
+    public void completed(Long userId, Workout workout, LocalDateTime startedAt) {
+        if (userId == null || workout == null) {
+            return;
+        }
+        int[] features = features(workout.getCategory(), workout.getDifficulty(), workout.getDuration());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, features, startedAt);
+                }
+            });
+        } else {
+            apply(userId, features, startedAt);
+        }
+    }
+
+    private void apply(Long userId, int[] features, LocalDateTime startedAt) {
+        Catalog current = catalog;
+        if (current == null) {
+            return;
+        }
+        Profiles batch = profiles;
+        // The batch counted this session as abandoned (and in the total) only if it had started before
+        // that batch's cutoff; a younger one was still open then and counted nowhere
+        boolean wasAbandoned = startedAt != null && batch.abandonCutoff() != null
+                && startedAt.isBefore(batch.abandonCutoff());
+        Profile profile = batch.byUser().computeIfAbsent(userId, id -> new Profile());
+        synchronized (profile) {
+            float[] counts = profile.counts;
+            for (int feature : features) {
+                if (feature < 0) {
+                    continue;
+                }
+                counts[feature]++;
+                if (wasAbandoned && counts[ABANDONED + feature] > 0) {
+                    counts[ABANDONED + feature]--;
+                }
+            }
+            if (!wasAbandoned) {
+                counts[TOTAL]++;
+            }
+            rank(profile, userId, current);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${vitalyou.recommendations.refresh-interval:PT1H}",
+               initialDelayString = "${vitalyou.recommendations.refresh-interval:PT1H}")
+    public void rebuild() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Catalog next = loadCatalog();
+
+        // Reference tables are on every shard, sessions on their user's shard: each user is read once
+        Map<Long, Profile> rebuilt = new ConcurrentHashMap<>();
+        float[] finished = new float[next.ids().length];
+        LocalDateTime abandonCutoff = LocalDateTime.now().minus(abandonAfter);
+        Timestamp abandonedBefore = Timestamp.valueOf(abandonCutoff);
+        for (int shard = 0; shard < shards.count(); shard++) {
+            shards.jdbc(shard).query(SESSION_COUNTS, rs -> {
+                int index = next.indexOf(rs.getLong(2));
+                if (index < 0) {
+                    return;
+                }
+                float done = rs.getLong(3);
+                float abandoned = rs.getLong(4);
+                float[] counts = rebuilt.computeIfAbsent(rs.getLong(1), id -> new Profile()).counts;
+                for (int f = 3 * index; f < 3 * index + 3; f++) {
+                    int feature = next.features()[f];
+                    if (feature >= 0) {
+                        counts[feature] += done;
+                        counts[ABANDONED + feature] += abandoned;
+                    }
+                }
+                counts[TOTAL] += done + abandoned;
+                finished[index] += done;
+            }, abandonedBefore);
+        }
+        float most = 0;
+        for (float count : finished) {
+            most = Math.max(most, count);
+        }
+        for (int i = 0; i < finished.length; i++) {
+            next.popularity()[i] = most > 0 ? (float) (Math.log1p(finished[i]) / Math.log1p(most)) : 0;
+        }
+
+        rankAll(rebuilt, next);
+        catalog = next;
+        profiles = new Profiles(rebuilt, abandonCutoff);
+        System.out.println("🎯 Recomendaciones precalculadas: " + rebuilt.size() + " usuarios, "
+                + next.ids().length + " workouts en " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Users split into threads slices, each ranked independently
+    private void rankAll(Map<Long, Profile> rebuilt, Catalog next) throws InterruptedException {
+        List<Map.Entry<Long, Profile>> entries = new ArrayList<>(rebuilt.entrySet());
+        int workers = Math.max(1, Math.min(threads, entries.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> slices = new ArrayList<>(workers);
+            int sliceSize = (entries.size() + workers - 1) / workers;
+            for (int from = 0; from < entries.size(); from += sliceSize) {
+                List<Map.Entry<Long, Profile>> slice = entries.subList(from, Math.min(entries.size(), from + sliceSize));
+                slices.add(pool.submit(() -> {
+                    for (Map.Entry<Long, Profile> entry : slice) {
+                        rank(entry.getValue(), entry.getKey(), next);
+                    }
+                }));
+            }
+            for (Future<?> slice : slices) {
+                slice.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ranking recommendations failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // One pass over the catalog keeping the k best in small sorted arrays: O(workouts * k) worst case
+    private void rank(Profile profile, long userId, Catalog catalog) {
+        float[] preference = preference(profile.counts);
+        int[] top = new int[Math.min(topK, catalog.ids().length)];
+        float[] scores = new float[top.length];
+        int size = 0;
+        for (int w = 0; w < catalog.ids().length; w++) {
+            long owner = catalog.owners()[w];
+            if (owner != 0 && owner != userId) {
+                continue;
+            }
+            float score = POPULARITY_WEIGHT * catalog.popularity()[w];
+            for (int f = 3 * w; f < 3 * w + 3; f++) {
+                int feature = catalog.features()[f];
+                if (feature >= 0) {
+                    score += preference[feature];
+                }
+            }
+            // Ties keep the lower id first
+            if (size == top.length && (size == 0 || score <= scores[size - 1])) {
+                continue;
+            }
+            int at = size < top.length ? size++ : size - 1;
+            while (at > 0 && scores[at - 1] < score) {
+                scores[at] = scores[at - 1];
+                top[at] = top[at - 1];
+                at--;
+            }
+            scores[at] = score;
+            top[at] = w;
+        }
+        profile.ranking = new Ranking(catalog, size == top.length ? top : Arrays.copyOf(top, size));
+    }
+
+    // Share of the user's sessions on each feature, minus a penalty for the abandoned ones
+    private static float[] preference(float[] counts) {
+        float[] preference = new float[FEATURES];
+        float total = counts[TOTAL] + 1;
+        for (int f = 0; f < FEATURES; f++) {
+            preference[f] = (counts[f] - ABANDON_WEIGHT * counts[ABANDONED + f]) / total;
+        }
+        return preference;
+    }
+
+    private Catalog loadCatalog() {
+        List<Object[]> rows = shards.jdbc(0).query(
+                "SELECT id, user_id, name, description, duration, difficulty, category, created_at FROM workouts ORDER BY id",
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getObject(2), rs.getString(3), rs.getString(4),
+                        rs.getObject(5), rs.getString(6), rs.getString(7), rs.getTimestamp(8)});
+        int n = rows.size();
+        long[] ids = new long[n];
+        long[] owners = new long[n];
+        int[] features = new int[3 * n];
+        WorkoutView[] views = new WorkoutView[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Long) row[0];
+            owners[i] = row[1] != null ? ((Number) row[1]).longValue() : 0;
+            Integer duration = row[4] != null ? ((Number) row[4]).intValue() : null;
+            Workout.Difficulty difficulty = row[5] != null ? Workout.Difficulty.valueOf((String) row[5]) : null;
+            Workout.Category category = row[6] != null ? Workout.Category.valueOf((String) row[6]) : null;
+            System.arraycopy(features(category, difficulty, duration), 0, features, 3 * i, 3);
+            views[i] = new WorkoutView(ids[i], (String) row[2], (String) row[3], duration, difficulty, category,
+                    row[7] != null ? ((Timestamp) row[7]).toLocalDateTime() : null, null);
+        }
+        return new Catalog(ids, owners, features, new float[n], views);
+    }
+
+    // Feature slots of a workout; -1 where the value is unknown
+    private static int[] features(Workout.Category category, Workout.Difficulty difficulty, Integer duration) {
+        int band = -1;
+        if (duration != null) {
+            band = DURATION_BANDS.length;
+            for (int i = 0; i < DURATION_BANDS.length; i++) {
+                if (duration <= DURATION_BANDS[i]) {
+                    band = i;
+                    break;
+                }
+            }
+        }
+        return new int[] {
+            category != null ? category.ordinal() : -1,
+            difficulty != null ? CATEGORIES + difficulty.ordinal() : -1,
+            band >= 0 ? CATEGORIES + DIFFICULTIES + band : -1
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Workout;
+import com.example.vitalyou.model.WorkoutSession;
+import com.example.vitalyou.repository.UserRepository;
+import com.example.vitalyou.repository.WorkoutRepository;
+import com.example.vitalyou.repository.WorkoutSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Session writes; returned sessions have their workout fetched for WorkoutSessionView
+@Service
+public class WorkoutSessionService {
+
+    @Autowired
+    private WorkoutSessionRepository workoutSessionRepository;
+
+    @Autowired
+    private WorkoutRepository workoutRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserExistence userExistence;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private CalorieEstimator calorieEstimator;
+
+    @Autowired
+    private WorkoutRecommender workoutRecommender;
+
+    // Deleting a user under sharding: the user is deleted on shard 0, where the User cascade finds
+    // no sessions, so they go first here, on the user's shard, with the user's row on it. Meals still
+    // pointing at the user fail the delete and roll the sessions back, as the cascade would
+    @Transactional
+    public void deleteUserSessions(Long userId) {
+        workoutSessionRepository.deleteAll(workoutSessionRepository.findByUserIdOrderByStartedAtDesc(userId));
+        workoutSessionRepository.flush();
+        userRepository.deleteRow(userId);
+    }
+
+    // Write-behind path: a validated session with its id assigned, not stored yet.
+    // Empty if the body carries an id or points at a user or workout that does not exist
+    // (the batched INSERT would fail on the foreign key after the 202 went out)
+    public Optional<WorkoutSession> prepareSession(WorkoutSession session) {
+        if (session.getId() != null) {
+            return Optional.empty();
+        }
+        if (session.getUser() != null) {
+            Long userId = session.getUser().getId();
+            if (userId == null || !userExistence.exists(userId)) {
+                return Optional.empty();
+            }
+            session.setUser(userRepository.getReferenceById(userId));
+        }
+        if (session.getWorkout() != null) {
+            Long workoutId = session.getWorkout().getId();
+            Optional<Workout> workout = workoutId != null ? workoutRepository.findById(workoutId) : Optional.empty();
+            if (workout.isEmpty()) {
+                return Optional.empty();
+            }
+            session.setWorkout(workout.get());
+        }
+        if (session.getStartedAt() == null) {
+            session.setStartedAt(LocalDateTime.now());
+        }
+        session.setId(idAllocator.next(WorkoutSession.class));
+        return Optional.of(session);
+    }
+
+    // Empty if the session does not exist
+    @Transactional
+    public Optional<WorkoutSession> updateSession(Long id, WorkoutSession sessionDetails) {
+        Optional<WorkoutSession> optionalSession = workoutSessionRepository.findWithWorkoutById(id);
+        if (optionalSession.isEmpty()) {
+            return Optional.empty();
+        }
+
+        WorkoutSession session = optionalSession.get();
+        // startedAt is part of the pagination key, keep it when not sent
+        if (sessionDetails.getStartedAt() != null) {
+            session.setStartedAt(sessionDetails.getStartedAt());
+        }
+        session.setFinishedAt(sessionDetails.getFinishedAt());
+        session.setDurationMinutes(sessionDetails.getDurationMinutes());
+        session.setCaloriesBurned(sessionDetails.getCaloriesBurned());
+        session.setNotes(sessionDetails.getNotes());
+        return Optional.of(session);
+    }
+
+    // Empty if the session does not exist. Completing it again returns it unchanged: the end time,
+    // the calorie estimate and the recommender's count stay those of the first completion
+    @Transactional
+    public Optional<WorkoutSession> completeSession(Long id) {
+        Optional<WorkoutSession> optionalSession = workoutSessionRepository.findWithWorkoutById(id);
+        if (optionalSession.isEmpty()) {
+            return Optional.empty();
+        }
+
+        WorkoutSession session = optionalSession.get();
+        if (session.getFinishedAt() != null) {
+            return Optional.of(session);
+        }
+        session.setFinishedAt(LocalDateTime.now());
+        // Server-side estimate from the workout's MET, the duration and the user's weight
+        Integer calories = calorieEstimator.estimate(session, session.getUser() != null ? session.getUser().getWeight() : null);
+        if (calories != null) {
+            session.setCaloriesBurned(calories);
+        }
+        workoutRecommender.completed(session.getUser() != null ? session.getUser().getId() : null,
+                session.getWorkout(), session.getStartedAt());
+        return Optional.of(session);
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.config.ReplicaSet;
+import com.example.vitalyou.model.Meal;
+import com.example.vitalyou.model.WorkoutSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Opt-in write-behind path for POST /api/meals and POST /api/workout-sessions.
+// - The controller validates the request, assigns the id (IdAllocator) and answers 202 right away.
+// - Accepted rows wait in a bounded queue; when it is full submit() refuses and the client gets 503.
+// - One writer thread group-commits: it takes whatever arrived within flush-interval (up to
+//   max-batch rows) and writes it in one transaction with JDBC batch inserts plus the rollup.
+// - Until that commit the rows stay in a per-user index so the user's own GETs can merge them in.
+//   With read replicas they stay there after it too, until every replica in rotation shows the
+//   commit (ReplicaSet.replicatedUpTo), so a GET served by a lagging replica still sees them.
+// Rows are inserted with JDBC because JPA persist() refuses a preassigned id on a generated one.
+// Neither table is in the second-level cache, so there is nothing to invalidate.
+@Component
+public class WriteBehindQueue implements SmartLifecycle {
+
+    private static final String INSERT_MEAL = "INSERT INTO meals (id, user_id, food_id, quantity, meal_type, "
+            + "meal_date, total_calories, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SESSION = "INSERT INTO workout_sessions (id, user_id, workout_id, started_at, "
+            + "finished_at, duration_minutes, calories_burned, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    @Value("${vitalyou.ingest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${vitalyou.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${vitalyou.ingest.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${vitalyou.ingest.flush-interval:PT0.005S}")
+    private Duration flushInterval;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DailyNutritionService dailyNutritionService;
+
+    @Autowired
+    private EntityCounters entityCounters;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired(required = false)
+    private ReplicaSet replicaSet;
+
+    private BlockingQueue<Object> queue;
+    private TransactionTemplate transactionTemplate;
+    private Counter rejected;
+    private Thread writer;
+    private volatile boolean running = false;
+
+    private final Pending<Meal> pendingMeals = new Pending<>(Meal::getId, meal -> meal.getUser().getId());
+    private final Pending<WorkoutSession> pendingSessions = new Pending<>(WorkoutSession::getId,
+            session -> session.getUser() != null ? session.getUser().getId() : null);
+
+    // Committed rows still indexed while the replicas catch up, oldest commit first (writer thread only)
+    private final Queue<Replicating> replicating = new ArrayDeque<>();
+
+    private record Replicating(Object row, LocalDateTime committedAt) {}
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Gauge.builder("vitalyou.ingest.queue.size", queue, Collection::size)
+                .description("Write-behind rows accepted but not committed yet")
+                .register(meterRegistry);
+        rejected = Counter.builder("vitalyou.ingest.rejected")
+                .description("Write-behind requests refused because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // False when the queue is full (or shutting down): the caller answers 503
+    public boolean submit(Meal meal) {
+        pendingMeals.add(meal);
+        return offer(meal, () -> pendingMeals.remove(meal));
+    }
+
+    public boolean submit(WorkoutSession session) {
+        pendingSessions.add(session);
+        return offer(session, () -> pendingSessions.remove(session));
+    }
+
+    // Read-your-writes: accepted rows the writer has not committed yet
+    public Collection<Meal> pendingMeals(Long userId) {
+        return pendingMeals.ofUser(userId);
+    }
+
+    public Collection<WorkoutSession> pendingSessions(Long userId) {
+        return pendingSessions.ofUser(userId);
+    }
+
+    public Optional<WorkoutSession> pendingSession(Long id) {
+        return pendingSessions.byId(id);
+    }
+
+    // A deleted row must not come back from the index while the replicas catch up
+    public void forgetMeal(Long id) {
+        pendingMeals.byId(id).ifPresent(pendingMeals::remove);
+    }
+
+    public void forgetSession(Long id) {
+        pendingSessions.byId(id).ifPresent(pendingSessions::remove);
+    }
+
+    private boolean offer(Object row, Runnable undo) {
+        // Indexed before the offer so the writer can never commit a row that is not indexed yet
+        if (running && queue.offer(row)) {
+            return true;
+        }
+        undo.run();
+        rejected.increment();
+        return false;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drain, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("📥 Escritura diferida activa: cola de " + queueCapacity + " filas, lotes de hasta "
+                + maxBatch + " cada " + flushInterval.toMillis() + " ms");
+    }
+
+    // Whatever is still queued is written before the DataSource closes
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Start before and stop after the web server, so no accepted request outlives the writer
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<Object> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            releaseReplicated();
+            try {
+                Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Group commit: give concurrent requests flush-interval to join this transaction
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < maxBatch) {
+                    Object next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // Only stop() ends the loop; keep draining
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // One transaction per shard: rows go to the shard of their user
+    private void write(List<Object> batch) {
+        Set<Object> committed = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            Map<Integer, List<Object>> byShard = new TreeMap<>();
+            for (Object row : batch) {
+                byShard.computeIfAbsent(shards.shardOf(userIdOf(row)), shard -> new ArrayList<>()).add(row);
+            }
+            byShard.forEach((shard, rows) -> shards.on(shard, () -> {
+                committed.addAll(writeOnShard(rows));
+                return null;
+            }));
+        } finally {
+            LocalDateTime committedAt = LocalDateTime.now();
+            for (Object row : batch) {
+                if (replicaSet != null && committed.contains(row)) {
+                    replicating.add(new Replicating(row, committedAt));
+                } else {
+                    unindex(row);
+                }
+            }
+        }
+    }
+
+    // Unindex the committed rows every replica in rotation shows by now
+    private void releaseReplicated() {
+        if (replicating.isEmpty()) {
+            return;
+        }
+        LocalDateTime upTo = replicaSet.replicatedUpTo();
+        Replicating oldest;
+        while ((oldest = replicating.peek()) != null && oldest.committedAt().isBefore(upTo)) {
+            replicating.poll();
+            unindex(oldest.row());
+        }
+    }
+
+    private void unindex(Object row) {
+        if (row instanceof Meal meal) {
+            pendingMeals.remove(meal);
+        } else if (row instanceof WorkoutSession session) {
+            pendingSessions.remove(session);
+        }
+    }
+
+    // The rows that were committed
+    private List<Object> writeOnShard(List<Object> rows) {
+        try {
+            commitRetrying(rows);
+            return rows;
+        } catch (RuntimeException e) {
+            // One bad row (e.g. its user was deleted meanwhile) must not sink the rest of the batch
+            List<Object> committed = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                try {
+                    commit(List.of(row));
+                    committed.add(row);
+                } catch (RuntimeException rowError) {
+                    System.err.println("❌ Escritura diferida descartada: " + row.getClass().getSimpleName()
+                            + " " + idOf(row) + " - " + rowError.getMessage());
+                }
+            }
+            return committed;
+        }
+    }
+
+    // While the database is unreachable the batch is kept and retried; the queue fills up
+    // in the meantime and new requests get 503 instead of piling up
+    private void commitRetrying(List<Object> batch) {
+        while (true) {
+            try {
+                commit(batch);
+                return;
+            } catch (CannotCreateTransactionException | TransientDataAccessException e) {
+                if (!running) {
+                    throw e;
+                }
+                System.err.println("⚠️ Escritura diferida en espera, base de datos no disponible: " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY.toMillis());
+                } catch (InterruptedException interrupted) {
+                    // keep retrying until stop()
+                }
+            }
+        }
+    }
+
+    private void commit(List<Object> rows) {
+        List<Meal> meals = new ArrayList<>();
+        List<WorkoutSession> sessions = new ArrayList<>();
+        for (Object row : rows) {
+            if (row instanceof Meal meal) {
+                meals.add(meal);
+            } else if (row instanceof WorkoutSession session) {
+                sessions.add(session);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!meals.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_MEAL, meals, meals.size(), (ps, meal) -> {
+                    ps.setLong(1, meal.getId());
+                    ps.setLong(2, meal.getUser().getId());
+                    ps.setLong(3, meal.getFood().getId());
+                    ps.setDouble(4, meal.getQuantity());
+                    ps.setString(5, meal.getMealType().name());
+                    ps.setObject(6, meal.getDate());
+                    ps.setObject(7, meal.getTotalCalories(), Types.DOUBLE);
+                    ps.setObject(8, meal.getCreatedAt());
+                });
+                dailyNutritionService.addAll(meals);
+                entityCounters.adjust(Meal.class, meals.size());
+            }
+            if (!sessions.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SESSION, sessions, sessions.size(), (ps, session) -> {
+                    ps.setLong(1, session.getId());
+                    ps.setObject(2, session.getUser() != null ? session.getUser().getId() : null, Types.BIGINT);
+                    ps.setObject(3, session.getWorkout() != null ? session.getWorkout().getId() : null, Types.BIGINT);
+                    ps.setObject(4, session.getStartedAt());
+                    ps.setObject(5, session.getFinishedAt());
+                    ps.setObject(6, session.getDurationMinutes(), Types.INTEGER);
+                    ps.setObject(7, session.getCaloriesBurned(), Types.INTEGER);
+                    ps.setString(8, session.getNotes());
+                });
+                entityCounters.adjust(WorkoutSession.class, sessions.size());
+            }
+        });
+    }
+
+    private static Long userIdOf(Object row) {
+        if (row instanceof Meal meal) {
+            return meal.getUser().getId();
+        }
+        return row instanceof WorkoutSession session && session.getUser() != null ? session.getUser().getId() : null;
+    }
+
+    private static Object idOf(Object row) {
+        if (row instanceof Meal meal) {
+            return meal.getId();
+        }
+        return row instanceof WorkoutSession session ? session.getId() : null;
+    }
+
+    // id -> row and user id -> (id -> row) for the rows still in flight
+    private static final class Pending<T> {
+
+        private final Function<T, Long> idOf;
+        private final Function<T, Long> userIdOf;
+        private final Map<Long, T> byId = new ConcurrentHashMap<>();
+        private final Map<Long, Map<Long, T>> byUser = new ConcurrentHashMap<>();
+
+        Pending(Function<T, Long> idOf, Function<T, Long> userIdOf) {
+            this.idOf = idOf;
+            this.userIdOf = userIdOf;
+        }
+
+        void add(T row) {
+            Long id = idOf.apply(row);
+            byId.put(id, row);
+            Long userId = userIdOf.apply(row);
+            if (userId != null) {
+                // compute() so a concurrent remove() cannot drop the map we are adding to
+                byUser.compute(userId, (k, rows) -> {
+                    Map<Long, T> result = rows != null ? rows : new ConcurrentHashMap<>();
+                    result.put(id, row);
+                    return result;
+                });
+            }
+        }
+
+        void remove(T row) {
+            Long id = idOf.apply(row);
+            byId.remove(id);
+            Long userId = userIdOf.apply(row);
+            if (userId != null) {
+                byUser.computeIfPresent(userId, (k, rows) -> {
+                    rows.remove(id);
+                    return rows.isEmpty() ? null : rows;
+                });
+            }
+        }
+
+        Optional<T> byId(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        Collection<T> ofUser(Long userId) {
+            Map<Long, T> rows = byUser.get(userId);
+            return rows != null ? List.copyOf(rows.values()) : List.of();
+        }
+    }
+}
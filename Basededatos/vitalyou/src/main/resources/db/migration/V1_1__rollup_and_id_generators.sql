@@ -0,0 +1,27 @@
+-- Tables added after the baseline schema. Databases that ran with ddl-auto=update in the
+-- meantime may already have them, hence "if not exists".
+
+-- Per-day nutrition rollup (DailyNutritionService). NutritionRollupRunner fills it from the
+-- meals table on the first start; V2 re-clusters its primary key by user.
+create table if not exists daily_nutrition (
+    breakfast_calories float(53) not null,
+    dinner_calories float(53) not null,
+    lunch_calories float(53) not null,
+    meals_count integer not null,
+    nutrition_date date not null,
+    snack_calories float(53) not null,
+    total_calories float(53) not null,
+    total_carbs float(53) not null,
+    total_fat float(53) not null,
+    total_protein float(53) not null,
+    user_id bigint not null,
+    primary key (nutrition_date, user_id)
+) engine=InnoDB;
+
+-- Pooled table generators for meal and session ids; IdGeneratorInitializer seeds the rows
+-- above the existing AUTO_INCREMENT ids, which the columns keep for older rows.
+create table if not exists id_generators (
+    next_val bigint,
+    generator_name varchar(255) not null,
+    primary key (generator_name)
+) engine=InnoDB;
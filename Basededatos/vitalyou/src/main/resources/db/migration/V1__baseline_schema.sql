@@ -0,0 +1,97 @@
+-- Schema as created by spring.jpa.hibernate.ddl-auto=update (Hibernate 6, MySQL dialect)
+-- from the entities before any migration existed. Existing databases are baselined at this
+-- version (spring.flyway.baseline-on-migrate), so tables added since then go in V1_1 and later.
+
+create table users (
+    age integer,
+    height float(53),
+    weight float(53),
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    fitness_goal varchar(255),
+    name varchar(255) not null,
+    password varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table workouts (
+    duration integer,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    user_id bigint,
+    description text,
+    name varchar(255) not null,
+    category enum ('CARDIO','FLEXIBILIDAD','FUERZA','HIIT'),
+    difficulty enum ('AVANZADO','INTERMEDIO','PRINCIPIANTE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table exercises (
+    duration_seconds integer,
+    reps integer,
+    sets integer,
+    weight float(53),
+    id bigint not null auto_increment,
+    workout_id bigint,
+    description text,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table workout_sessions (
+    calories_burned integer,
+    duration_minutes integer,
+    finished_at datetime(6),
+    id bigint not null auto_increment,
+    started_at datetime(6),
+    user_id bigint,
+    workout_id bigint,
+    notes text,
+    primary key (id)
+) engine=InnoDB;
+
+create table foods (
+    calories float(53),
+    carbs float(53),
+    fat float(53),
+    protein float(53),
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    serving_size varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table meals (
+    meal_date date not null,
+    quantity float(53) not null,
+    total_calories float(53),
+    created_at datetime(6),
+    food_id bigint not null,
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    meal_type enum ('BREAKFAST','DINNER','LUNCH','SNACK') not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table users
+    add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table workouts
+    add constraint FKpf8ql3wbw2drijbk1ugfvki3d foreign key (user_id) references users (id);
+
+alter table exercises
+    add constraint FK3dr0elb30wvc59xnqo67l38dd foreign key (workout_id) references workouts (id);
+
+alter table workout_sessions
+    add constraint FKfwqciawyjntpphp080wpa37ge foreign key (user_id) references users (id);
+
+alter table workout_sessions
+    add constraint FKd3ec3i9vnl22ff7en96bbubsp foreign key (workout_id) references workouts (id);
+
+alter table meals
+    add constraint FKeu537t3eaphhquseeciobv3bm foreign key (food_id) references foods (id);
+
+alter table meals
+    add constraint FK677c66qpjr7234luomahc1ale foreign key (user_id) references users (id);
@@ -0,0 +1,29 @@
+-- Composite indexes matched to the repository query shapes.
+-- Each one leads with the FK column, so InnoDB drops the single-column index
+-- it created implicitly for that foreign key.
+
+-- MealRepository.findByUserAndDateOrderByCreatedAtDesc (meals of a day), findByUserAndDateBetween
+create index idx_meals_user_date_created on meals (user_id, meal_date, created_at);
+
+-- Keyset pages are newest first, so these are descending indexes; the NDJSON exports
+-- (ascending) read them backwards.
+
+-- Keyset pages of a user's meals: WHERE user_id = ? ORDER BY meal_date DESC, id DESC
+create index idx_meals_user_date_id on meals (user_id, meal_date desc, id desc);
+
+-- Keyset pages over all meals: ORDER BY meal_date DESC, id DESC
+create index idx_meals_date_id on meals (meal_date desc, id desc);
+
+-- Keyset pages of a user's sessions: WHERE user_id = ? ORDER BY started_at DESC, id DESC
+create index idx_sessions_user_started on workout_sessions (user_id, started_at desc, id desc);
+
+-- Keyset pages over all sessions: ORDER BY started_at DESC, id DESC
+create index idx_sessions_started_id on workout_sessions (started_at desc, id desc);
+
+-- WorkoutRepository.findByUser / findByUserAndCategory / findByUserIsNull[OrUser] (ref_or_null on user_id)
+create index idx_workouts_user_category on workouts (user_id, category);
+
+-- daily_nutrition is always read per user (PK lookups and date ranges). Cluster it by
+-- (user_id, nutrition_date) so a range is one contiguous, covering primary-key scan.
+alter table daily_nutrition drop primary key;
+alter table daily_nutrition add primary key (user_id, nutrition_date);
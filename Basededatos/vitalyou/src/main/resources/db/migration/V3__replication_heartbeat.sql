@@ -0,0 +1,9 @@
+-- Heartbeat for the replica lag guard (config/ReplicaSet): the application stamps the row on
+-- the primary and reads it back from each replica; replication carries it like any other row.
+create table replication_heartbeat (
+    id integer not null,
+    beat_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+insert into replication_heartbeat (id, beat_at) values (1, null);
@@ -0,0 +1,5 @@
+-- Id of a food in the nutrient database it was imported from (FoodImportService).
+-- A bulk import upserts on it; foods created through the API leave it null.
+alter table foods add column source_code varchar(64);
+
+create unique index ux_foods_source_code on foods (source_code);
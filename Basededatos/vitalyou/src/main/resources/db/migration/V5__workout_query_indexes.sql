@@ -0,0 +1,14 @@
+-- Indexes for GET /api/workouts/query (WorkoutSpecifications), which pages ORDER BY name, id
+-- or ORDER BY duration, id. InnoDB appends the primary key to every secondary index, so
+-- (x, name) is also ordered by id within equal names.
+
+-- scope=user / global (user_id = ? or user_id is null), optionally with a name prefix,
+-- read in name order without a sort
+create index idx_workouts_user_name on workouts (user_id, name);
+
+-- Unscoped queries and name prefixes: name LIKE 'prefix%' is a range scan in name order
+-- (findByNameContainingIgnoreCase, a '%text%' match, cannot use it)
+create index idx_workouts_name on workouts (name);
+
+-- sort=duration within a scope, and minDuration / maxDuration ranges
+create index idx_workouts_user_duration on workouts (user_id, duration);
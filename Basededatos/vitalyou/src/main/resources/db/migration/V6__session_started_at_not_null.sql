@@ -0,0 +1,6 @@
+-- started_at is the leading key of the session pages (ORDER BY started_at desc, id desc) and
+-- of their cursors. Every write path sets it; rows from before that get their finish time, or
+-- the migration time for sessions that never finished.
+update workout_sessions set started_at = coalesce(finished_at, current_timestamp(6)) where started_at is null;
+
+alter table workout_sessions modify started_at datetime(6) not null;
@@ -0,0 +1,127 @@
+package com.example.vitalyou.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// User-scoped endpoints run only the statement that fetches their data: the user is never loaded,
+// and its existence comes from UserExistence (warm here, since the user was created through the API).
+// Counted with the hibernate.request.statements metric of HibernateRequestMetrics, on an in-memory H2.
+@SpringBootTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:query-count;MODE=MySQL;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureMockMvc
+class UserScopedQueryCountTests {
+
+	private static final String TODAY = LocalDate.now().toString();
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private long userId;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		userId = idOf(mvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Ana\",\"email\":\"ana" + System.nanoTime() + "@vitalyou.test\",\"password\":\"x\",\"weight\":60}")));
+		long foodId = idOf(mvc.perform(post("/api/foods").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Avena\",\"calories\":380,\"protein\":13,\"carbs\":67,\"fat\":7}")));
+		mvc.perform(post("/api/meals").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"userId\":" + userId + ",\"foodId\":" + foodId + ",\"quantity\":1,\"mealType\":\"BREAKFAST\",\"date\":\"" + TODAY + "\"}"))
+				.andExpect(status().isOk());
+		mvc.perform(post("/api/workouts").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Mi rutina\",\"duration\":30,\"category\":\"FUERZA\",\"userId\":" + userId + "}"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void mealsOfUser() throws Exception {
+		assertEquals(1, statements("MealController#getMealsByUserId", get("/api/meals/user/" + userId)));
+	}
+
+	@Test
+	void mealsOfUserAndDate() throws Exception {
+		assertEquals(1, statements("MealController#getMealsByUserAndDate", get("/api/meals/user/" + userId + "/date/" + TODAY)));
+	}
+
+	@Test
+	void dailyNutrition() throws Exception {
+		assertEquals(1, statements("MealController#getDailyNutrition", get("/api/meals/nutrition/daily/" + userId + "/" + TODAY)));
+	}
+
+	@Test
+	void workoutsOfUser() throws Exception {
+		assertEquals(1, statements("WorkoutController#getUserWorkouts", get("/api/workouts/user/" + userId)));
+	}
+
+	@Test
+	void availableWorkouts() throws Exception {
+		assertEquals(1, statements("WorkoutController#getAvailableWorkouts", get("/api/workouts/available/" + userId)));
+	}
+
+	// Only the meal INSERT and the daily_nutrition update; neither the user nor the food (L2 cache) is read
+	@Test
+	void createMeal() throws Exception {
+		long foodId = idOf(mvc.perform(get("/api/foods/search?q=avena")), 0);
+		assertEquals(2, statements("MealController#createMeal", post("/api/meals").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"userId\":" + userId + ",\"foodId\":" + foodId + ",\"quantity\":2,\"mealType\":\"LUNCH\",\"date\":\"" + TODAY + "\"}")));
+	}
+
+	@Test
+	void unknownUserIsStillNotFound() throws Exception {
+		mvc.perform(get("/api/meals/user/987654321")).andExpect(status().isNotFound());
+		mvc.perform(get("/api/meals/user/987654321/date/" + TODAY)).andExpect(status().isNotFound());
+		mvc.perform(get("/api/meals/nutrition/daily/987654321/" + TODAY)).andExpect(status().isNotFound());
+		mvc.perform(get("/api/workouts/user/987654321")).andExpect(status().isNotFound());
+		mvc.perform(get("/api/workouts/available/987654321")).andExpect(status().isNotFound());
+	}
+
+	// Statements the request prepared, from the difference in its handler's summary
+	private long statements(String handler, RequestBuilder request) throws Exception {
+		double before = total(handler);
+		mvc.perform(request).andExpect(status().isOk());
+		return Math.round(total(handler) - before);
+	}
+
+	private double total(String handler) {
+		DistributionSummary summary = meterRegistry.find("hibernate.request.statements").tag("handler", handler).summary();
+		return summary != null ? summary.totalAmount() : 0;
+	}
+
+	private long idOf(ResultActions result) throws Exception {
+		return objectMapper.readTree(result.andExpect(status().isOk()).andReturn().getResponse().getContentAsString())
+				.get("id").asLong();
+	}
+
+	private long idOf(ResultActions result, int index) throws Exception {
+		JsonNode items = objectMapper.readTree(result.andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+		return items.get(index).get("id").asLong();
+	}
+}
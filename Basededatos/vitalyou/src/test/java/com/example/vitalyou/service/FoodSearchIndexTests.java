@@ -0,0 +1,60 @@
+package com.example.vitalyou.service;
+
+import com.example.vitalyou.model.Food;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FoodSearchIndexTests {
+
+	private FoodSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new FoodSearchIndex();
+		index.put(food(1L, "Pechuga de Pollo"));
+		index.put(food(2L, "Pollo Asado"));
+		index.put(food(3L, "Arroz Blanco"));
+		index.put(food(4L, "Brócoli"));
+		index.put(food(5L, "Repollo"));
+	}
+
+	@Test
+	void ranksNamePrefixThenWordPrefixThenSubstring() {
+		assertEquals(List.of(2L, 1L, 5L), ids(index.search("pollo", 10)));
+	}
+
+	@Test
+	void ignoresCaseAndAccents() {
+		assertEquals(List.of(4L), ids(index.search("BROCO", 10)));
+	}
+
+	@Test
+	void appliesLimit() {
+		assertEquals(List.of(2L), ids(index.search("pollo", 1)));
+	}
+
+	@Test
+	void tracksUpdatesAndDeletes() {
+		index.put(food(3L, "Arroz Integral"));
+		assertTrue(index.search("blanco", 10).isEmpty());
+		assertEquals(List.of(3L), ids(index.search("integral", 10)));
+
+		index.remove(2L);
+		assertEquals(List.of(1L, 5L), ids(index.search("pollo", 10)));
+	}
+
+	private static Food food(Long id, String name) {
+		Food food = new Food(name, 100.0, 1.0, 1.0, 1.0, "100g");
+		food.setId(id);
+		return food;
+	}
+
+	private static List<Long> ids(List<Food> foods) {
+		return foods.stream().map(Food::getId).toList();
+	}
+}
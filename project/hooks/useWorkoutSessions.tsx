@@ -16,13 +16,20 @@ export function useWorkoutSessions() {
     setError(null);
     try {
       const userId = parseInt(user.id);
-      const response = await workoutSessionService.getSessionsByUserId(userId);
-      if (response.success && response.data) {
-        setSessions(response.data);
-        console.log('✅ User sessions loaded:', response.data.length);
-      } else {
-        setError(response.error || 'Failed to load sessions');
-      }
+      // The list comes in pages (newest first): show the first one and append the rest
+      const loaded: WorkoutSession[] = [];
+      let cursor: string | undefined;
+      do {
+        const response = await workoutSessionService.getSessionsPageByUserId(userId, cursor);
+        if (!response.success || !response.data) {
+          setError(response.error || 'Failed to load sessions');
+          return;
+        }
+        loaded.push(...response.data);
+        setSessions([...loaded]);
+        cursor = response.nextCursor;
+      } while (cursor);
+      console.log('✅ User sessions loaded:', loaded.length);
     } catch (err) {
       setError('Error loading sessions');
       console.error('❌ Error loading sessions:', err);
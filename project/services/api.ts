@@ -7,6 +7,11 @@ export interface ApiResponse<T> {
   success: boolean;
 }
 
+// One page of a keyset-paginated list; pass nextCursor back to get the following page
+export interface PagedResponse<T> extends ApiResponse<T[]> {
+  nextCursor?: string;
+}
+
 class ApiService {
   private baseURL: string;
 
@@ -61,6 +66,58 @@ class ApiService {
     });
   }
 
+  // GET one page of a paginated list (cursor comes back in the X-Next-Cursor header)
+  async getPage<T>(endpoint: string, cursor?: string, limit?: number): Promise<PagedResponse<T>> {
+    try {
+      const params: string[] = [];
+      if (limit) params.push(`limit=${limit}`);
+      if (cursor) params.push(`cursor=${encodeURIComponent(cursor)}`);
+      const separator = endpoint.includes('?') ? '&' : '?';
+      const url = `${this.baseURL}${endpoint}${params.length ? separator + params.join('&') : ''}`;
+
+      console.log(`🌐 API Request: GET ${url}`);
+
+      const response = await fetch(url, {
+        method: 'GET',
+        headers: { 'Content-Type': 'application/json' },
+      });
+
+      if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+      }
+
+      const data = await response.json();
+
+      return {
+        data,
+        nextCursor: response.headers.get('X-Next-Cursor') || undefined,
+        success: true,
+      };
+    } catch (error) {
+      console.error('❌ API Error:', error);
+      return {
+        error: error instanceof Error ? error.message : 'Unknown error',
+        success: false,
+      };
+    }
+  }
+
+  // GET every page of a paginated list, following X-Next-Cursor until the last page
+  async getAllPages<T>(endpoint: string, limit?: number): Promise<ApiResponse<T[]>> {
+    const items: T[] = [];
+    let cursor: string | undefined;
+    do {
+      const page = await this.getPage<T>(endpoint, cursor, limit);
+      if (!page.success || !page.data) {
+        return { error: page.error || 'Failed to load page', success: false };
+      }
+      items.push(...page.data);
+      cursor = page.nextCursor;
+    } while (cursor);
+
+    return { data: items, success: true };
+  }
+
   // POST request
   async post<T>(endpoint: string, data: any): Promise<ApiResponse<T>> {
     return this.request<T>(endpoint, {
@@ -1,4 +1,4 @@
-import { apiService, ApiResponse } from './api';
+import { apiService, ApiResponse, PagedResponse } from './api';
 
 export interface Food {
   id: number;
@@ -29,6 +29,19 @@ export interface CreateMealRequest {
   date: string;
 }
 
+// Several foods logged as one meal; items may override mealType/date
+export interface CreateMealBatchRequest {
+  userId: number;
+  mealType: 'BREAKFAST' | 'LUNCH' | 'DINNER' | 'SNACK';
+  date: string;
+  items: {
+    foodId: number;
+    quantity: number;
+    mealType?: 'BREAKFAST' | 'LUNCH' | 'DINNER' | 'SNACK';
+    date?: string;
+  }[];
+}
+
 export interface CreateFoodRequest {
   name: string;
   calories: number;
@@ -56,13 +69,17 @@ class NutritionService {
     return apiService.get<Food[]>(`/foods/search?q=${encodeURIComponent(query)}`);
   }
 
-  // Meals
+  // Meals (the list endpoints are paginated; these follow every page)
   async getAllMeals(): Promise<ApiResponse<Meal[]>> {
-    return apiService.get<Meal[]>('/meals');
+    return apiService.getAllPages<Meal>('/meals');
   }
 
   async getMealsByUserId(userId: number): Promise<ApiResponse<Meal[]>> {
-    return apiService.get<Meal[]>(`/meals/user/${userId}`);
+    return apiService.getAllPages<Meal>(`/meals/user/${userId}`);
+  }
+
+  async getMealsPageByUserId(userId: number, cursor?: string, limit?: number): Promise<PagedResponse<Meal>> {
+    return apiService.getPage<Meal>(`/meals/user/${userId}`, cursor, limit);
   }
 
   async getMealsByDate(userId: number, date: string): Promise<ApiResponse<Meal[]>> {
@@ -73,6 +90,10 @@ class NutritionService {
     return apiService.post<Meal>('/meals', mealData);
   }
 
+  async createMeals(batch: CreateMealBatchRequest): Promise<ApiResponse<Meal[]>> {
+    return apiService.post<Meal[]>('/meals/batch', batch);
+  }
+
   async updateMeal(id: number, mealData: Partial<Meal>): Promise<ApiResponse<Meal>> {
     return apiService.put<Meal>(`/meals/${id}`, mealData);
   }
@@ -81,6 +102,12 @@ class NutritionService {
     return apiService.delete<void>(`/meals/${id}`);
   }
 
+  // Per-day series plus totals and averages for the last `days` days (computed server-side)
+  async getNutritionRange(userId: number, days: number, end?: string): Promise<ApiResponse<any>> {
+    const endParam = end ? `&end=${end}` : '';
+    return apiService.get(`/meals/nutrition/range/${userId}?days=${days}${endParam}`);
+  }
+
   // Nutrition summary
   async getDailyNutrition(userId: number, date: string): Promise<ApiResponse<any>> {
     return apiService.get(`/nutrition/daily/${userId}/${date}`);
@@ -40,7 +40,7 @@ class UserService {
 
   // Get all users
   async getAllUsers(): Promise<ApiResponse<User[]>> {
-    return apiService.get<User[]>('/users');
+    return apiService.getAllPages<User>('/users');
   }
 
   // Get user by ID
@@ -1,4 +1,4 @@
-import { apiService, ApiResponse } from './api';
+import { apiService, ApiResponse, PagedResponse } from './api';
 import { User } from './userService';
 import { Workout } from './workoutService';
 
@@ -22,9 +22,9 @@ export interface CreateWorkoutSessionRequest {
 }
 
 class WorkoutSessionService {
-  // Get all workout sessions
+  // Get all workout sessions (every page)
   async getAllSessions(): Promise<ApiResponse<WorkoutSession[]>> {
-    return apiService.get<WorkoutSession[]>('/workout-sessions');
+    return apiService.getAllPages<WorkoutSession>('/workout-sessions');
   }
 
   // Get session by ID
@@ -32,9 +32,14 @@ class WorkoutSessionService {
     return apiService.get<WorkoutSession>(`/workout-sessions/${id}`);
   }
 
-  // Get sessions by user ID
+  // Get sessions by user ID (every page, newest first)
   async getSessionsByUserId(userId: number): Promise<ApiResponse<WorkoutSession[]>> {
-    return apiService.get<WorkoutSession[]>(`/workout-sessions/user/${userId}`);
+    return apiService.getAllPages<WorkoutSession>(`/workout-sessions/user/${userId}`);
+  }
+
+  // Get one page of a user's sessions (newest first)
+  async getSessionsPageByUserId(userId: number, cursor?: string, limit?: number): Promise<PagedResponse<WorkoutSession>> {
+    return apiService.getPage<WorkoutSession>(`/workout-sessions/user/${userId}`, cursor, limit);
   }
 
   // Create workout session